@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.benchmarks;
+
+import com.helger.css.decl.CSSMediaRule;
+import com.helger.css.decl.CSSSelector;
+import com.helger.css.decl.CSSStyleRule;
+import com.helger.css.decl.CSSSupportsRule;
+import com.helger.css.decl.CascadingStyleSheet;
+import com.helger.css.decl.ICSSTopLevelRule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the files of the benchmark corpus, stored in the resources under
+ * {@code /corpus}. Each corpus is a stylesheet with a page using it:
+ * {@code <name>.css} and {@code <name>.html}.
+ *
+ * @author .Maui
+ */
+public final class Corpus {
+
+    private Corpus() {
+    }
+
+    /**
+     * Returns the stylesheet of a corpus.
+     *
+     * @param name The name of the corpus, like "bootstrap".
+     * @return the CSS
+     */
+    public static String css(String name) {
+        return read(name + ".css");
+    }
+
+    /**
+     * Returns the page of a corpus.
+     *
+     * @param name The name of the corpus, like "bootstrap".
+     * @return the HTML
+     */
+    public static String html(String name) {
+        return read(name + ".html");
+    }
+
+    /**
+     * Returns all the style rules of a stylesheet, including the ones inside
+     * media and supports rules.
+     *
+     * @param sheet The stylesheet.
+     * @return the style rules
+     */
+    public static List<CSSStyleRule> styleRules(CascadingStyleSheet sheet) {
+
+        List<CSSStyleRule> styleRules = new ArrayList<>();
+
+        for (ICSSTopLevelRule rule : sheet.getAllRules()) {
+
+            if (rule instanceof CSSStyleRule styleRule) {
+                styleRules.add(styleRule);
+            } else if (rule instanceof CSSMediaRule mediaRule) {
+                styleRules.addAll(mediaRule.getAllStyleRules());
+            } else if (rule instanceof CSSSupportsRule supportsRule) {
+                styleRules.addAll(supportsRule.getAllStyleRules());
+            }
+        }
+
+        return styleRules;
+    }
+
+    /**
+     * Returns all the selectors of a stylesheet, in order.
+     *
+     * @param sheet The stylesheet.
+     * @return the selectors
+     */
+    public static List<CSSSelector> selectors(CascadingStyleSheet sheet) {
+
+        List<CSSSelector> selectors = new ArrayList<>();
+
+        for (CSSStyleRule styleRule : styleRules(sheet)) {
+            selectors.addAll(styleRule.getAllSelectors());
+        }
+
+        return selectors;
+    }
+
+    private static String read(String fileName) {
+
+        try (InputStream is = Corpus.class.getResourceAsStream("/corpus/" + fileName)) {
+
+            if (is == null) {
+                throw new IllegalArgumentException("Unknown corpus file: " + fileName);
+            }
+
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,712 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Generates a stylesheet and a page of controlled size, to measure how the
+ * engine scales. The same settings and seed always give the same files.
+ *
+ * The page is a tree of elements with tags, classes, ids and data attributes.
+ * The rules of the stylesheet are built from the elements of the page: the
+ * "hit" rules have selectors matching some element, the others use class
+ * names that no element has. Some rules repeat the selector of a previous
+ * rule, and some are nested inside media queries.
+ *
+ * @author .Maui
+ */
+public class CorpusGenerator {
+
+    /**
+     * The kinds of selectors of the generated rules.
+     */
+    public enum SelectorKind {
+        /** A single class, like {@code .c12}. */
+        SIMPLE,
+        /** A tag with classes, like {@code div.c12.c40}. */
+        COMPOUND,
+        /** Two classes in a descendant relation, like {@code .c3 .c12}. */
+        DESCENDANT,
+        /** Two classes in a parent relation, like {@code .c3>.c12}. */
+        CHILD,
+        /** An attribute, like {@code [data-k3="v7"]}. */
+        ATTRIBUTE,
+        /** A class with a pseudo-class or a pseudo-element, like {@code .c12:hover}. */
+        PSEUDO
+    }
+
+    // No void elements, so that any element can have children.
+    private static final String[] TAGS = {"div", "span", "p", "a", "li", "ul", "section", "article", "button", "label", "h2", "nav"};
+    private static final String[] PSEUDOS = {":hover", ":focus", "::before", ":first-child", ":nth-child(2n+1)", "::after"};
+    private static final String[] PROPERTIES = {"color", "margin", "padding", "display", "width", "font-size", "border", "background-color"};
+
+    public static final int DEFAULT_ATTRIBUTE_NAMES = 8;
+    public static final int DEFAULT_ATTRIBUTE_VALUES = 16;
+
+    private final Map<SelectorKind, Integer> selectorWeights = new EnumMap<>(SelectorKind.class);
+
+    public CorpusGenerator() {
+        this.selectorWeights.put(SelectorKind.SIMPLE, 40);
+        this.selectorWeights.put(SelectorKind.COMPOUND, 20);
+        this.selectorWeights.put(SelectorKind.DESCENDANT, 15);
+        this.selectorWeights.put(SelectorKind.CHILD, 10);
+        this.selectorWeights.put(SelectorKind.ATTRIBUTE, 10);
+        this.selectorWeights.put(SelectorKind.PSEUDO, 5);
+    }
+
+    /**
+     * The elements of the page, as parallel arrays indexed by element.
+     */
+    private static class Page {
+
+        int[] parent;
+        int[] tag;
+        int[][] classes;
+        int[] attributeName;
+        int[] attributeValue;
+        int[][] children;
+
+    }
+
+    /**
+     * Generates the stylesheet and the page.
+     *
+     * @return the generated corpus
+     */
+    public GeneratedCorpus generate() {
+
+        StringBuilder css = new StringBuilder();
+        StringBuilder html = new StringBuilder();
+
+        try {
+            generate(css, html);
+        } catch (IOException ex) {
+            // StringBuilder doesn't throw.
+            throw new IllegalStateException(ex);
+        }
+
+        return new GeneratedCorpus(css.toString(), html.toString());
+    }
+
+    /**
+     * Generates the stylesheet and the page, writing them as they are built.
+     *
+     * @param css Where the stylesheet is written.
+     * @param html Where the page is written.
+     * @throws IOException If writing fails.
+     */
+    public void generate(Appendable css, Appendable html) throws IOException {
+
+        SplittableRandom random = new SplittableRandom(this.seed);
+
+        Page page = generatePage(random.split());
+
+        writeHTML(page, html);
+        writeCSS(page, random.split(), css);
+
+    }
+
+    private Page generatePage(SplittableRandom random) {
+
+        int count = Math.max(1, this.elements);
+        int vocabulary = getClassVocabulary();
+
+        Page page = new Page();
+        page.parent = new int[count];
+        page.tag = new int[count];
+        page.classes = new int[count][];
+        page.attributeName = new int[count];
+        page.attributeValue = new int[count];
+
+        int[] childCount = new int[count];
+
+        page.parent[0] = -1;
+        page.tag[0] = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            if (i > 0) {
+                // A random previous element keeps the tree shallow (logarithmic depth).
+                page.parent[i] = random.nextInt(i);
+                childCount[page.parent[i]]++;
+            }
+
+            if (i > 0) {
+                page.tag[i] = random.nextInt(TAGS.length);
+            }
+
+            int[] classes = new int[1 + random.nextInt(3)];
+
+            for (int c = 0; c < classes.length; c++) {
+                classes[c] = random.nextInt(vocabulary);
+            }
+
+            page.classes[i] = classes;
+
+            // One element out of four has a data attribute.
+            if (random.nextInt(4) == 0) {
+                page.attributeName[i] = random.nextInt(DEFAULT_ATTRIBUTE_NAMES);
+                page.attributeValue[i] = random.nextInt(DEFAULT_ATTRIBUTE_VALUES);
+            } else {
+                page.attributeName[i] = -1;
+            }
+        }
+
+        page.children = new int[count][];
+
+        for (int i = 0; i < count; i++) {
+            page.children[i] = new int[childCount[i]];
+            childCount[i] = 0;
+        }
+
+        for (int i = 1; i < count; i++) {
+            int p = page.parent[i];
+            page.children[p][childCount[p]++] = i;
+        }
+
+        return page;
+    }
+
+    private void writeHTML(Page page, Appendable out) throws IOException {
+
+        out.append("<!doctype html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n<title>Generated</title>\n</head>\n<body>\n");
+
+        // Iterative depth-first walk: a negative entry closes the element -entry - 1.
+        int[] stack = new int[page.parent.length * 2];
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+
+            int entry = stack[--top];
+
+            if (entry < 0) {
+                out.append("</").append(TAGS[page.tag[-entry - 1]]).append(">\n");
+                continue;
+            }
+
+            out.append('<').append(TAGS[page.tag[entry]]).append(" class=\"");
+
+            for (int c = 0; c < page.classes[entry].length; c++) {
+                if (c > 0) {
+                    out.append(' ');
+                }
+                out.append('c').append(String.valueOf(page.classes[entry][c]));
+            }
+
+            out.append("\" id=\"e").append(String.valueOf(entry)).append('"');
+
+            if (page.attributeName[entry] >= 0) {
+                out.append(" data-k").append(String.valueOf(page.attributeName[entry]))
+                        .append("=\"v").append(String.valueOf(page.attributeValue[entry])).append('"');
+            }
+
+            out.append('>');
+
+            if (page.children[entry].length == 0) {
+                out.append("Item ").append(String.valueOf(entry));
+            } else {
+                out.append('\n');
+            }
+
+            stack[top++] = -entry - 1;
+
+            for (int c = page.children[entry].length - 1; c >= 0; c--) {
+                stack[top++] = page.children[entry][c];
+            }
+        }
+
+        out.append("</body>\n</html>\n");
+    }
+
+    private void writeCSS(Page page, SplittableRandom random, Appendable out) throws IOException {
+
+        int total = 0;
+
+        for (int weight : this.selectorWeights.values()) {
+            total += Math.max(0, weight);
+        }
+
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one kind of selector must have a weight");
+        }
+
+        List<String> previousSelectors = new ArrayList<>();
+        int missClass = 0;
+        int openMedia = 0;
+        int rulesInMedia = 0;
+
+        for (int r = 0; r < this.rules; r++) {
+
+            // Opens the media queries around a block of rules.
+            if (openMedia == 0 && this.mediaDepth > 0 && random.nextDouble() < this.mediaRatio) {
+
+                for (int d = 0; d < this.mediaDepth; d++) {
+                    out.append("@media (min-width:").append(String.valueOf(320 + 160 * d)).append("px){");
+                }
+
+                openMedia = this.mediaDepth;
+                rulesInMedia = 1 + random.nextInt(20);
+            }
+
+            String selector;
+
+            if (!previousSelectors.isEmpty() && random.nextDouble() < this.duplicateRatio) {
+                selector = previousSelectors.get(random.nextInt(previousSelectors.size()));
+            } else {
+
+                boolean hit = random.nextDouble() < this.hitRatio;
+                selector = buildSelector(page, random, pickKind(random, total), hit ? -1 : missClass++);
+
+                // Only a bounded sample is kept for the duplicates, to limit the memory on huge corpora.
+                if (previousSelectors.size() < 4096) {
+                    previousSelectors.add(selector);
+                } else {
+                    previousSelectors.set(random.nextInt(previousSelectors.size()), selector);
+                }
+            }
+
+            out.append(selector).append('{');
+
+            int declarations = 1 + random.nextInt(4);
+
+            for (int d = 0; d < declarations; d++) {
+                String property = PROPERTIES[random.nextInt(PROPERTIES.length)];
+                out.append(property).append(':').append(getValue(property, random)).append(';');
+            }
+
+            out.append("}\n");
+
+            if (openMedia > 0 && --rulesInMedia == 0) {
+
+                for (int d = 0; d < openMedia; d++) {
+                    out.append('}');
+                }
+
+                out.append('\n');
+                openMedia = 0;
+            }
+        }
+
+        for (int d = 0; d < openMedia; d++) {
+            out.append('}');
+        }
+    }
+
+    private SelectorKind pickKind(SplittableRandom random, int total) {
+
+        int n = random.nextInt(total);
+
+        for (Map.Entry<SelectorKind, Integer> entry : this.selectorWeights.entrySet()) {
+
+            n -= Math.max(0, entry.getValue());
+
+            if (n < 0) {
+                return entry.getKey();
+            }
+        }
+
+        return SelectorKind.SIMPLE;
+    }
+
+    /**
+     * Builds a selector matching a random element of the page, or, if
+     * missClass is not negative, the same kind of selector with a class that
+     * no element has.
+     */
+    private String buildSelector(Page page, SplittableRandom random, SelectorKind kind, int missClass) {
+
+        int element = random.nextInt(page.parent.length);
+        int[] classes = page.classes[element];
+        String ownClass = (missClass >= 0) ? "m" + missClass : "c" + classes[random.nextInt(classes.length)];
+
+        switch (kind) {
+
+            case COMPOUND: {
+                StringBuilder sb = new StringBuilder(TAGS[page.tag[element]]).append('.').append(ownClass);
+                if (classes.length > 1) {
+                    int other = classes[random.nextInt(classes.length)];
+                    if (!ownClass.equals("c" + other)) {
+                        sb.append(".c").append(other);
+                    }
+                }
+                return sb.toString();
+            }
+
+            case DESCENDANT:
+            case CHILD: {
+
+                int ancestor = page.parent[element];
+
+                if (ancestor < 0) {
+                    return "." + ownClass;
+                }
+
+                // A descendant selector can use any ancestor, a child selector only the parent.
+                if (kind == SelectorKind.DESCENDANT) {
+                    while (page.parent[ancestor] >= 0 && random.nextBoolean()) {
+                        ancestor = page.parent[ancestor];
+                    }
+                }
+
+                int[] ancestorClasses = page.classes[ancestor];
+                String ancestorClass = ".c" + ancestorClasses[random.nextInt(ancestorClasses.length)];
+
+                return ancestorClass + (kind == SelectorKind.CHILD ? ">." : " .") + ownClass;
+            }
+
+            case ATTRIBUTE: {
+
+                if (missClass >= 0) {
+                    return "[data-m" + missClass + "]";
+                }
+
+                if (page.attributeName[element] < 0) {
+                    return "[id=\"e" + element + "\"]";
+                }
+
+                return "[data-k" + page.attributeName[element] + "=\"v" + page.attributeValue[element] + "\"]";
+            }
+
+            case PSEUDO:
+                return "." + ownClass + PSEUDOS[random.nextInt(PSEUDOS.length)];
+
+            default:
+                return "." + ownClass;
+        }
+    }
+
+    private static String getValue(String property, SplittableRandom random) {
+
+        return switch (property) {
+            case "color", "background-color" ->
+                String.format("#%06x", random.nextInt(0x1000000));
+            case "display" ->
+                random.nextBoolean() ? "block" : "flex";
+            case "border" ->
+                (1 + random.nextInt(4)) + "px solid #000";
+            default ->
+                random.nextInt(64) + "px";
+        };
+    }
+
+    /**
+     * Returns the number of distinct class names used by the page: one for
+     * every four elements, at least 16.
+     */
+    private int getClassVocabulary() {
+        return Math.max(16, this.elements / 4);
+    }
+
+    private int rules = 1000;
+
+    /**
+     * Get the number of style rules of the stylesheet
+     *
+     * @return the value of rules
+     */
+    public int getRules() {
+        return rules;
+    }
+
+    /**
+     * Set the number of style rules of the stylesheet
+     *
+     * @param rules new value of rules
+     */
+    public void setRules(int rules) {
+        this.rules = rules;
+    }
+
+    private int elements = 1000;
+
+    /**
+     * Get the number of elements of the page
+     *
+     * @return the value of elements
+     */
+    public int getElements() {
+        return elements;
+    }
+
+    /**
+     * Set the number of elements of the page
+     *
+     * @param elements new value of elements
+     */
+    public void setElements(int elements) {
+        this.elements = elements;
+    }
+
+    private double hitRatio = 0.3;
+
+    /**
+     * Get the fraction of the new selectors that match an element of the page
+     *
+     * @return the value of hitRatio
+     */
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    /**
+     * Set the fraction of the new selectors that match an element of the page
+     *
+     * @param hitRatio new value of hitRatio, between 0 and 1
+     */
+    public void setHitRatio(double hitRatio) {
+        this.hitRatio = hitRatio;
+    }
+
+    private double duplicateRatio = 0.1;
+
+    /**
+     * Get the fraction of the rules that repeat the selector of a previous
+     * rule
+     *
+     * @return the value of duplicateRatio
+     */
+    public double getDuplicateRatio() {
+        return duplicateRatio;
+    }
+
+    /**
+     * Set the fraction of the rules that repeat the selector of a previous
+     * rule
+     *
+     * @param duplicateRatio new value of duplicateRatio, between 0 and 1
+     */
+    public void setDuplicateRatio(double duplicateRatio) {
+        this.duplicateRatio = duplicateRatio;
+    }
+
+    private int mediaDepth = 1;
+
+    /**
+     * Get the number of nested media queries around a block of rules
+     *
+     * @return the value of mediaDepth
+     */
+    public int getMediaDepth() {
+        return mediaDepth;
+    }
+
+    /**
+     * Set the number of nested media queries around a block of rules. With 0
+     * there are no media queries.
+     *
+     * @param mediaDepth new value of mediaDepth
+     */
+    public void setMediaDepth(int mediaDepth) {
+        this.mediaDepth = mediaDepth;
+    }
+
+    private double mediaRatio = 0.05;
+
+    /**
+     * Get the probability that a block of rules inside media queries starts
+     * at a rule
+     *
+     * @return the value of mediaRatio
+     */
+    public double getMediaRatio() {
+        return mediaRatio;
+    }
+
+    /**
+     * Set the probability that a block of rules inside media queries starts
+     * at a rule
+     *
+     * @param mediaRatio new value of mediaRatio, between 0 and 1
+     */
+    public void setMediaRatio(double mediaRatio) {
+        this.mediaRatio = mediaRatio;
+    }
+
+    private long seed = 42;
+
+    /**
+     * Get the seed of the random generator
+     *
+     * @return the value of seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the seed of the random generator
+     *
+     * @param seed new value of seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Get the weight of a kind of selector in the mix of the new selectors
+     *
+     * @param kind The kind of selector.
+     * @return the weight
+     */
+    public int getSelectorWeight(SelectorKind kind) {
+        return selectorWeights.get(kind);
+    }
+
+    /**
+     * Set the weight of a kind of selector in the mix of the new selectors.
+     * The default mix is 40 simple, 20 compound, 15 descendant, 10 child, 10
+     * attribute and 5 pseudo.
+     *
+     * @param kind The kind of selector.
+     * @param weight new weight, 0 to exclude the kind
+     */
+    public void setSelectorWeight(SelectorKind kind, int weight) {
+        selectorWeights.put(kind, weight);
+    }
+
+    /**
+     * A generated stylesheet with its page.
+     */
+    public static class GeneratedCorpus {
+
+        private final String css;
+        private final String html;
+
+        public GeneratedCorpus(String css, String html) {
+            this.css = css;
+            this.html = html;
+        }
+
+        /**
+         * Get the value of css
+         *
+         * @return the value of css
+         */
+        public String getCss() {
+            return css;
+        }
+
+        /**
+         * Get the value of html
+         *
+         * @return the value of html
+         */
+        public String getHtml() {
+            return html;
+        }
+
+    }
+
+    /**
+     * Writes a generated corpus to two files.
+     *
+     * @param args the command line arguments
+     * @throws ParseException
+     * @throws IOException
+     */
+    public static void main(String[] args) throws ParseException, IOException {
+
+        Options options = new Options();
+
+        options.addOption(new Option("help", "Print this message"));
+        options.addOption(Option.builder("css").argName("file").hasArg().required().desc("The file of the generated CSS.").build());
+        options.addOption(Option.builder("html").argName("file").hasArg().required().desc("The file of the generated HTML.").build());
+        options.addOption(Option.builder("rules").argName("n").hasArg().desc("Number of style rules (default 1000).").build());
+        options.addOption(Option.builder("elements").argName("n").hasArg().desc("Number of elements of the page (default 1000).").build());
+        options.addOption(Option.builder("hits").argName("ratio").hasArg().desc("Fraction of the selectors that match the page (default 0.3).").build());
+        options.addOption(Option.builder("duplicates").argName("ratio").hasArg().desc("Fraction of the rules that repeat a previous selector (default 0.1).").build());
+        options.addOption(Option.builder("mediadepth").argName("n").hasArg().desc("Number of nested media queries around a block of rules (default 1).").build());
+        options.addOption(Option.builder("mediaratio").argName("ratio").hasArg().desc("Probability that a block of rules inside media queries starts (default 0.05).").build());
+        options.addOption(Option.builder("mix").argName("kind=weight,...").hasArg()
+                .desc("Weights of the kinds of selectors: simple, compound, descendant, child, attribute, pseudo.").build());
+        options.addOption(Option.builder("seed").argName("n").hasArg().desc("Seed of the random generator (default 42).").build());
+
+        if (args.length == 0 || args[0].equals("-help")) {
+            new HelpFormatter().printHelp("java -cp VultureCSSCore.jar " + CorpusGenerator.class.getName(), options);
+            return;
+        }
+
+        CommandLine cmd = new DefaultParser().parse(options, args);
+        CorpusGenerator generator = new CorpusGenerator();
+
+        if (cmd.hasOption("rules")) {
+            generator.setRules(Integer.parseInt(cmd.getOptionValue("rules")));
+        }
+
+        if (cmd.hasOption("elements")) {
+            generator.setElements(Integer.parseInt(cmd.getOptionValue("elements")));
+        }
+
+        if (cmd.hasOption("hits")) {
+            generator.setHitRatio(Double.parseDouble(cmd.getOptionValue("hits")));
+        }
+
+        if (cmd.hasOption("duplicates")) {
+            generator.setDuplicateRatio(Double.parseDouble(cmd.getOptionValue("duplicates")));
+        }
+
+        if (cmd.hasOption("mediadepth")) {
+            generator.setMediaDepth(Integer.parseInt(cmd.getOptionValue("mediadepth")));
+        }
+
+        if (cmd.hasOption("mediaratio")) {
+            generator.setMediaRatio(Double.parseDouble(cmd.getOptionValue("mediaratio")));
+        }
+
+        if (cmd.hasOption("seed")) {
+            generator.setSeed(Long.parseLong(cmd.getOptionValue("seed")));
+        }
+
+        if (cmd.hasOption("mix")) {
+            for (String pair : cmd.getOptionValue("mix").split(",")) {
+                String[] kv = pair.split("=", 2);
+                generator.setSelectorWeight(SelectorKind.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(kv[1].trim()));
+            }
+        }
+
+        try (Writer css = Files.newBufferedWriter(Paths.get(cmd.getOptionValue("css")), StandardCharsets.UTF_8);
+                Writer html = Files.newBufferedWriter(Paths.get(cmd.getOptionValue("html")), StandardCharsets.UTF_8)) {
+            generator.generate(css, html);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.benchmarks;
+
+import com.dotmaui.vulturecss.core.VultureCSSCoreHTMLChecker;
+import com.dotmaui.vulturecss.models.VultureCSSOptions;
+import com.helger.css.ECSSVersion;
+import com.helger.css.decl.CSSSelector;
+import com.helger.css.reader.CSSReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The check of all the selectors of a stylesheet against an already parsed
+ * page, as strings and as parsed selectors. A new checker is created for each
+ * operation, so its memo tables start empty and the index of the page is
+ * built each time.
+ *
+ * @author .Maui
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HTMLCheckerBenchmark {
+
+    @Param({"bootstrap", "utility", "javadoc"})
+    public String corpus;
+
+    private Document document;
+    private List<CSSSelector> selectors;
+    private String[] selectorStrings;
+    private VultureCSSOptions options;
+
+    @Setup
+    public void setup() {
+
+        this.document = Jsoup.parse(Corpus.html(this.corpus));
+        this.selectors = Corpus.selectors(CSSReader.readFromString(Corpus.css(this.corpus), ECSSVersion.LATEST));
+        this.selectorStrings = this.selectors.stream().map(CSSSelector::getAsCSSString).toArray(String[]::new);
+        this.options = new VultureCSSOptions();
+    }
+
+    @Benchmark
+    public void isSelectorUsedString(Blackhole bh) {
+
+        VultureCSSCoreHTMLChecker checker = new VultureCSSCoreHTMLChecker(this.document, this.options);
+
+        for (String selector : this.selectorStrings) {
+            bh.consume(checker.isSelectorUsed(selector));
+        }
+    }
+
+    @Benchmark
+    public void isSelectorUsedParsed(Blackhole bh) {
+
+        VultureCSSCoreHTMLChecker checker = new VultureCSSCoreHTMLChecker(this.document, this.options);
+
+        for (CSSSelector selector : this.selectors) {
+            bh.consume(checker.isSelectorUsed(selector));
+        }
+    }
+
+}
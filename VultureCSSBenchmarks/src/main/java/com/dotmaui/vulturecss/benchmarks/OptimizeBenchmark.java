@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.benchmarks;
+
+import com.dotmaui.vulturecss.core.VultureCSSCoreOptimize;
+import com.helger.css.ECSSVersion;
+import com.helger.css.decl.CSSStyleRule;
+import com.helger.css.reader.CSSReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The removal of the duplicate declarations of style rules: 100 rules with the
+ * given number of declarations each, half of which are overridden by a later
+ * declaration of the same property. The "bootstrap" rows use the real rules of
+ * Bootstrap instead.
+ *
+ * @author .Maui
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizeBenchmark {
+
+    private static final int RULES = 100;
+
+    @Param({"10", "100", "1000", "bootstrap"})
+    public String declarations;
+
+    private List<CSSStyleRule> rules;
+
+    @Setup
+    public void setup() {
+
+        String css;
+
+        if (this.declarations.equals("bootstrap")) {
+
+            css = Corpus.css("bootstrap");
+
+        } else {
+
+            int count = Integer.parseInt(this.declarations);
+            StringBuilder sb = new StringBuilder();
+
+            for (int r = 0; r < RULES; r++) {
+
+                sb.append(".rule-").append(r).append('{');
+
+                for (int d = 0; d < count; d++) {
+
+                    // The second half of the declarations repeats the properties of the first half.
+                    sb.append("property-").append(d % Math.max(1, count / 2)).append(':');
+                    sb.append(d % 7 == 0 ? "url(data:image/png;base64,AAAA)" : d + "px");
+
+                    if (d % 11 == 0) {
+                        sb.append(" !important");
+                    }
+
+                    sb.append(';');
+                }
+
+                sb.append('}');
+            }
+
+            css = sb.toString();
+        }
+
+        this.rules = Corpus.styleRules(CSSReader.readFromString(css, ECSSVersion.LATEST));
+    }
+
+    @Benchmark
+    public List<CSSStyleRule> optimizeCSSStyleRules() {
+        return VultureCSSCoreOptimize.optimizeCSSStyleRules(this.rules);
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.benchmarks;
+
+import com.dotmaui.vulturecss.core.CompareCSSHTML;
+import com.dotmaui.vulturecss.core.VultureCSSCoreMergify;
+import com.dotmaui.vulturecss.models.VultureCSSOptions;
+import com.helger.css.ECSSVersion;
+import com.helger.css.decl.CascadingStyleSheet;
+import com.helger.css.reader.CSSReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The purge and the merge on generated stylesheets from 1k to 1M rules, to
+ * chart how the time and the allocations (with {@code -prof gc}) grow with
+ * the size of the input. Each operation is timed once, as the largest ones
+ * take seconds.
+ *
+ * @author .Maui
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScalingBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rules;
+
+    @Param({"10000"})
+    public int elements;
+
+    @Param({"0.3"})
+    public double hitRatio;
+
+    @Param({"0.1"})
+    public double duplicateRatio;
+
+    @Param({"1"})
+    public int mediaDepth;
+
+    private String css;
+    private String html;
+    private CascadingStyleSheet sheet;
+    private VultureCSSOptions options;
+
+    @Setup
+    public void setup() {
+
+        CorpusGenerator generator = new CorpusGenerator();
+        generator.setRules(this.rules);
+        generator.setElements(this.elements);
+        generator.setHitRatio(this.hitRatio);
+        generator.setDuplicateRatio(this.duplicateRatio);
+        generator.setMediaDepth(this.mediaDepth);
+
+        CorpusGenerator.GeneratedCorpus corpus = generator.generate();
+
+        this.css = corpus.getCss();
+        this.html = corpus.getHtml();
+        this.sheet = CSSReader.readFromString(this.css, ECSSVersion.LATEST);
+        this.options = new VultureCSSOptions();
+    }
+
+    @Benchmark
+    public String process() throws Exception {
+        return CompareCSSHTML.Process(this.html, this.css, this.options);
+    }
+
+    @Benchmark
+    public CascadingStyleSheet mergeRules() {
+        return VultureCSSCoreMergify.MergeRules(this.sheet.getAllRules());
+    }
+
+}
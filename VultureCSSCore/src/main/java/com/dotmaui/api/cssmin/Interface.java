@@ -23,10 +23,10 @@
  */
 package com.dotmaui.api.cssmin;
 
+import com.dotmaui.vulturecss.utils.HttpFetcher;
 import java.io.BufferedReader;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -65,34 +65,13 @@ public class Interface {
 
     public static String downloadFromUrl(String url_req) {
 
-        URL url;
-        InputStream is = null;
-        BufferedReader br;
-        String line;
-        String content = "";
-
         try {
-            url = new URL(url_req);
-            is = url.openStream();  // throws an IOException
-            br = new BufferedReader(new InputStreamReader(is));
-
-            while ((line = br.readLine()) != null) {
-                content += line;
-            }
+            return HttpFetcher.getShared().fetch(new URL(url_req));
         } catch (MalformedURLException mue) {
             return null;
         } catch (IOException ioe) {
             return null;
-        } finally {
-            try {
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException ioe) {
-                // nothing to see here
-            }
         }
 
-        return content;
     }
 }
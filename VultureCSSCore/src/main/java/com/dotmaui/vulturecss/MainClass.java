@@ -24,13 +24,26 @@
 package com.dotmaui.vulturecss;
 
 import com.dotmaui.api.cssmin.DotMauiCSSMinifyClient;
+import com.dotmaui.vulturecss.core.CompareCSSHTML;
 import com.dotmaui.vulturecss.core.VultureCSSCore;
+import com.dotmaui.vulturecss.core.VultureCSSCoreHTMLChecker;
 import com.dotmaui.vulturecss.models.Carcass;
+import com.dotmaui.vulturecss.models.MultiPageCarcass;
+import com.dotmaui.vulturecss.models.PageCarcass;
+import com.dotmaui.vulturecss.models.VultureCSSOptions;
 import com.dotmaui.vulturecss.utils.Functions;
+import com.dotmaui.vulturecss.utils.HttpDiskCache;
+import com.dotmaui.vulturecss.utils.HttpFetcher;
 import com.dotmaui.vulturecss.utils.Interface;
 import com.dotmaui.vulturecss.utils.MinifyWithYUI;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.MalformedURLException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -46,6 +59,7 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.json.JSONObject;
+import org.jsoup.Jsoup;
 
 public class MainClass {
 
@@ -85,6 +99,12 @@ public class MainClass {
                 .desc("The HTML to be analyzed. It can be a path or a URL.")
                 .build();
 
+        Option pages = Option.builder("pages")
+                .argName("files or urls")
+                .hasArgs()
+                .desc("The HTML pages to be analyzed together with the CSS. The result contains the CSS used by at least one page.")
+                .build();
+
         Option output = Option.builder("out")
                 .argName("file")
                 .hasArg()
@@ -107,14 +127,43 @@ public class MainClass {
 
         Option merge_all = new Option("merge", "If set, all used CSS will be merged into a single file or string.");
 
+        Option parallel = new Option("parallel", "If set, the CSS files found within the page are downloaded and processed concurrently.");
+
+        Option parallel_rules = new Option("parallelrules", "If set, the selectors of big CSS files are matched against the page concurrently.");
+
+        Option parallel_parsing = new Option("parallelparsing", "If set, big CSS files are split into chunks that are parsed concurrently.");
+
+        Option stream = new Option("stream", "If set, the CSS file is read and purged one rule at a time, without holding it in memory.");
+
+        Option auto_render = new Option("autorender", "If set, the pages that look like they need their JavaScript (single page applications, scripts that change the classes) are rendered before being checked.");
+
+        Option scan_scripts = new Option("scanscripts", "If set, the class names found in the scripts of the page are considered used.");
+
+        Option cache_dir = Option.builder("cachedir")
+                .argName("path")
+                .hasArg()
+                .desc("Folder where the downloaded files are cached. They are revalidated with the server before being used again.")
+                .build();
+
+        Option offline = new Option("offline", "If set, the files are read only from the cache folder and nothing is downloaded.");
+
         options.addOption(help);
         options.addOption(css);
         options.addOption(html);
+        options.addOption(pages);
         options.addOption(output);
         options.addOption(destination_folder);
         options.addOption(dotmaui_apikey);
         options.addOption(save_to_cdn);
         options.addOption(merge_all);
+        options.addOption(parallel);
+        options.addOption(parallel_rules);
+        options.addOption(parallel_parsing);
+        options.addOption(stream);
+        options.addOption(auto_render);
+        options.addOption(scan_scripts);
+        options.addOption(cache_dir);
+        options.addOption(offline);
 
         CommandLineParser parser = new DefaultParser();
         CommandLine cmd = parser.parse(options, args);
@@ -129,19 +178,92 @@ public class MainClass {
             throw new Exception("Nothing to process");
         }
 
+        if (cmd.hasOption("pages") && (!cmd.hasOption("css") || cmd.hasOption("html"))) {
+            throw new Exception("The pages must be specified together with a CSS and without an HTML");
+        }
+
         if (cmd.hasOption("cdn") && !cmd.hasOption("apikey")) {
             throw new Exception("Specify a valid API key");
         }
 
+        if (cmd.hasOption("stream") && (!cmd.hasOption("css") || !cmd.hasOption("html") || cmd.hasOption("cdn"))) {
+            throw new Exception("The stream mode requires a CSS file and an HTML, and can't be used with the CDN");
+        }
+
+        if (cmd.hasOption("offline") && !cmd.hasOption("cachedir")) {
+            throw new Exception("The offline mode requires a cache folder");
+        }
+
+        HttpFetcher fetcher = HttpFetcher.getShared();
+
+        if (cmd.hasOption("cachedir")) {
+            HttpDiskCache disk_cache = new HttpDiskCache(Paths.get(cmd.getOptionValue("cachedir")));
+            disk_cache.setOffline(cmd.hasOption("offline"));
+            fetcher = new HttpFetcher(disk_cache);
+        }
+
+        VultureCSSOptions vulture_options = new VultureCSSOptions();
+        vulture_options.setHttpFetcher(fetcher);
+        vulture_options.setParallelStyleSheets(cmd.hasOption("parallel"));
+        vulture_options.setParallelRules(cmd.hasOption("parallelrules"));
+        vulture_options.setParallelParsing(cmd.hasOption("parallelparsing"));
+        vulture_options.setAutoRenderHTML(cmd.hasOption("autorender"));
+        vulture_options.setScanScriptClasses(cmd.hasOption("scanscripts"));
+
         String final_result;
 
-        // If only the html is specified, 
-        // all the CSS files found within the page will be processed.
-        if (!cmd.hasOption("css")) {
+        // If many pages are specified, the CSS used by at least one of them is kept.
+        if (cmd.hasOption("pages")) {
+
+            String[] pages_to_compare = cmd.getOptionValues("pages");
+            List<String> pages_content = new ArrayList<>();
+
+            for (String page : pages_to_compare) {
+                pages_content.add(readContent(page, fetcher));
+            }
+
+            VultureCSSCore v = new VultureCSSCore(readContent(cmd.getOptionValue("css"), fetcher));
+            v.setOptions(vulture_options);
+            MultiPageCarcass carcass = v.ProcessPages(pages_content);
 
+            final_result = carcass.getUsedCSS();
+
+            // The detail of each page goes to stderr when the CSS is printed on the screen.
+            PrintStream report = cmd.hasOption("out") ? System.out : System.err;
+
+            for (int i = 0; i < pages_to_compare.length; i++) {
+
+                PageCarcass page = carcass.getPages().get(i);
+                page.setPath(pages_to_compare[i]);
+
+                report.println(page.getPath() + ": " + page.getUsedSelectors().size()
+                        + " selectors found, " + page.getCheckedSelectors() + " checked");
+            }
+
+            if (cmd.hasOption("out")) {
+
+                try (Writer out = Files.newBufferedWriter(Paths.get(cmd.getOptionValue("out")))) {
+                    out.write(final_result);
+                    out.write(System.lineSeparator());
+                }
+
+            } else {
+                System.out.print(final_result);
+            }
+
+        } else if (!cmd.hasOption("css")) {
+
+            // If only the html is specified, 
+            // all the CSS files found within the page will be processed.
             String html_to_compare = cmd.getOptionValue("html");
 
             VultureCSSCore v = new VultureCSSCore();
+            v.setOptions(vulture_options);
+
+            // Each used CSS is written straight to its file, unless it is merged or sent to the CDN.
+            if (!cmd.hasOption("merge") && !cmd.hasOption("cdn")) {
+                vulture_options.setOutputDirectory(Paths.get(cmd.hasOption("df") ? cmd.getOptionValue("df") : ""));
+            }
 
             try {
 
@@ -174,6 +296,16 @@ public class MainClass {
 
             for (Carcass c : carcasses) {
 
+                if (c.getUsedCSSFile() != null) {
+
+                    // Empty results are not saved.
+                    if (Files.size(c.getUsedCSSFile()) == 0) {
+                        Files.delete(c.getUsedCSSFile());
+                    }
+
+                    continue;
+                }
+
                 Path p = Paths.get(c.getPath());
                 String file_name = p.getFileName().toString();
                 String used_css = c.getUsedCSS();
@@ -213,34 +345,46 @@ public class MainClass {
 
             }
 
-        } else {
+        } else if (cmd.hasOption("stream")) {
 
-            String css_to_optimize = cmd.getOptionValue("css");
-            String css_to_optimize_content;
+            // The CSS goes from its file to the output one rule at a time.
+            String html_to_compare = cmd.getOptionValue("html");
+            String html_to_compare_content = readContent(html_to_compare, fetcher);
 
-            try {
-                java.net.URL u = new java.net.URL(css_to_optimize);
-                css_to_optimize_content = Interface.downloadFromUrl(u);
-            } catch (MalformedURLException ex) {
-                css_to_optimize_content = Interface.readFileContent(css_to_optimize);
+            // The page is parsed with its URL, so that the scripts it links can be scanned.
+            VultureCSSCoreHTMLChecker htmlChecker = VultureCSSCore.createHTMLChecker(
+                    Jsoup.parse(html_to_compare_content, html_to_compare.startsWith("http") ? html_to_compare : ""), vulture_options);
+
+            try (Reader in = Files.newBufferedReader(Paths.get(cmd.getOptionValue("css")))) {
+
+                if (cmd.hasOption("out")) {
+
+                    try (Writer out = Files.newBufferedWriter(Paths.get(cmd.getOptionValue("out")))) {
+                        CompareCSSHTML.Process(htmlChecker, in, vulture_options, out);
+                        out.write(System.lineSeparator());
+                    }
+
+                } else {
+                    Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+                    CompareCSSHTML.Process(htmlChecker, in, vulture_options, out);
+                    out.flush();
+                }
             }
 
+        } else {
+
+            String css_to_optimize_content = readContent(cmd.getOptionValue("css"), fetcher);
+
             if (cmd.hasOption("html")) {
 
                 String html_to_compare = cmd.getOptionValue("html");
-                String html_to_compare_content;
+                String html_to_compare_content = readContent(html_to_compare, fetcher);
 
-                try {
-                    java.net.URL u = new java.net.URL(html_to_compare);
-                    html_to_compare_content = Interface.downloadFromUrl(u);
-                } catch (MalformedURLException ex) {
-                    html_to_compare_content = Interface.readFileContent(html_to_compare);
-                }
+                // The page is parsed with its URL, so that the scripts it links can be scanned.
+                VultureCSSCoreHTMLChecker htmlChecker = VultureCSSCore.createHTMLChecker(
+                        Jsoup.parse(html_to_compare_content, html_to_compare.startsWith("http") ? html_to_compare : ""), vulture_options);
 
-                VultureCSSCore v = new VultureCSSCore(css_to_optimize_content, html_to_compare_content);
-                List<Carcass> carcasses = v.Process();
-
-                final_result = carcasses.get(0).getUsedCSS();
+                final_result = CompareCSSHTML.Process(htmlChecker, css_to_optimize_content, vulture_options);
 
             } else {
                 final_result = MinifyWithYUI.Process(css_to_optimize_content);
@@ -248,8 +392,9 @@ public class MainClass {
 
             if (cmd.hasOption("out")) {
 
-                try (PrintWriter out = new PrintWriter(cmd.getOptionValue("out"))) {
-                    out.println(final_result);
+                try (Writer out = Files.newBufferedWriter(Paths.get(cmd.getOptionValue("out")))) {
+                    out.write(final_result);
+                    out.write(System.lineSeparator());
                 }
 
             } else if (cmd.hasOption("cdn")) {
@@ -272,4 +417,18 @@ public class MainClass {
 
     }
 
+    /**
+     * Reads the content of a URL or, if it is not a URL, of a file.
+     */
+    private static String readContent(String urlOrPath, HttpFetcher fetcher) throws Exception {
+
+        try {
+            java.net.URL u = new java.net.URL(urlOrPath);
+            return Interface.downloadFromUrl(u, fetcher);
+        } catch (MalformedURLException ex) {
+            return Interface.readFileContent(urlOrPath);
+        }
+
+    }
+
 }
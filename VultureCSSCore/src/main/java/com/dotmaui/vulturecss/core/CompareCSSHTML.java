@@ -25,9 +25,13 @@ package com.dotmaui.vulturecss.core;
 
 import static com.dotmaui.vulturecss.core.VultureCSSCoreParser.getUsedRulesFromMediaRule;
 import static com.dotmaui.vulturecss.core.VultureCSSCoreParser.getUsedRulesFromSupportsRule;
+import static com.dotmaui.vulturecss.core.VultureCSSCoreParser.getUsedSelectorsFromStyleRule;
 import com.dotmaui.vulturecss.jstyleparser.VultureCSSWithjStyleParser;
+import com.dotmaui.vulturecss.models.MultiPageCarcass;
+import com.dotmaui.vulturecss.models.PageCarcass;
 import com.dotmaui.vulturecss.models.VultureCSSOptions;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.NonClosingWriter;
 import com.helger.css.ECSSVersion;
 import com.helger.css.decl.CSSMediaRule;
 import com.helger.css.decl.CSSSelector;
@@ -38,7 +42,30 @@ import com.helger.css.decl.ICSSTopLevelRule;
 import com.helger.css.reader.CSSReader;
 import com.helger.css.writer.CSSWriter;
 import com.helger.css.writer.CSSWriterSettings;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+import org.jsoup.Jsoup;
 
 /**
  * This class provides methods to process and filter CSS based on HTML usage.
@@ -50,6 +77,12 @@ import java.io.IOException;
  */
 public class CompareCSSHTML {
 
+    /**
+     * Maximum number of selector results kept by the checker while a
+     * stylesheet is processed as a stream.
+     */
+    private static final int STREAM_SELECTOR_CACHE_SIZE = 16384;
+
     /**
      * Processes the provided HTML and CSS to create a cleaned-up CSS stylesheet containing only
      * the rules used within the HTML.
@@ -63,83 +96,601 @@ public class CompareCSSHTML {
      */
     public static String Process(String html, String css, VultureCSSOptions options) throws IOException, Exception {
 
-        // Create a final CSS stylesheet that will contain the used rules.
-        CascadingStyleSheet finalCSS = new CascadingStyleSheet();
+        return writeCSS(getUsedRules(html, css, options), options);
+    }
+
+    /**
+     * Processes the provided HTML and CSS and writes the used CSS directly to
+     * a writer, without building it as a string. The writer is not closed.
+     *
+     * @param html     The HTML content to check the CSS against.
+     * @param css      The raw CSS stylesheet to be processed.
+     * @param options  The configuration options for the CSS processing.
+     * @param out      The writer of the result.
+     * @throws IOException If an I/O error occurs during the process.
+     * @throws Exception   If CSS parsing fails or an unexpected error occurs.
+     */
+    public static void Process(String html, String css, VultureCSSOptions options, Writer out) throws IOException, Exception {
+
+        writeCSS(getUsedRules(html, css, options), options, out);
+    }
+
+    /**
+     * Processes the provided HTML and CSS and writes the used CSS directly to
+     * a stream, in UTF-8. The stream is not closed.
+     *
+     * @param html     The HTML content to check the CSS against.
+     * @param css      The raw CSS stylesheet to be processed.
+     * @param options  The configuration options for the CSS processing.
+     * @param out      The stream of the result.
+     * @throws IOException If an I/O error occurs during the process.
+     * @throws Exception   If CSS parsing fails or an unexpected error occurs.
+     */
+    public static void Process(String html, String css, VultureCSSOptions options, OutputStream out) throws IOException, Exception {
+
+        writeCSS(getUsedRules(html, css, options), options, out);
+    }
+
+    /**
+     * Processes the provided HTML and CSS and writes the used CSS directly to
+     * a file, in UTF-8. The file is created or replaced.
+     *
+     * @param html     The HTML content to check the CSS against.
+     * @param css      The raw CSS stylesheet to be processed.
+     * @param options  The configuration options for the CSS processing.
+     * @param file     The file of the result.
+     * @throws IOException If an I/O error occurs during the process.
+     * @throws Exception   If CSS parsing fails or an unexpected error occurs.
+     */
+    public static void Process(String html, String css, VultureCSSOptions options, Path file) throws IOException, Exception {
+
+        writeCSS(getUsedRules(html, css, options), options, file);
+    }
+
+    /**
+     * Creates the stylesheet with the rules of the CSS used by the HTML.
+     */
+    private static CascadingStyleSheet getUsedRules(String html, String css, VultureCSSOptions options) throws Exception {
+
+        // Read the initial CSS stylesheet.
+        CascadingStyleSheet initialCSS = parseCSS(css, options);
+
+        if (html == null) {
+            return new CascadingStyleSheet();
+        }
+
+        // Create an HTML checker instance to verify the usage of CSS rules in the provided HTML.
+        VultureCSSCoreHTMLChecker htmlChecker = new VultureCSSCoreHTMLChecker(html, options);
+
+        return getUsedRules(initialCSS, htmlChecker::isSelectorUsed, options);
+    }
+
+    /**
+     * Processes the CSS against a page that has already been parsed. The same
+     * checker can be passed for all the stylesheets of a page, so that the
+     * HTML is parsed and indexed only once, and the selectors shared by the
+     * stylesheets are checked only once.
+     *
+     * @param htmlChecker The checker of the HTML page.
+     * @param css         The raw CSS stylesheet to be processed.
+     * @param options     The configuration options for the CSS processing.
+     * @return            A string containing the minimized CSS based on the provided HTML.
+     * @throws IOException If an I/O error occurs during the process.
+     * @throws Exception   If CSS parsing fails or an unexpected error occurs.
+     */
+    public static String Process(VultureCSSCoreHTMLChecker htmlChecker, String css, VultureCSSOptions options) throws IOException, Exception {
+
+        CascadingStyleSheet initialCSS = parseCSS(css, options);
+
+        return writeCSS(getUsedRules(initialCSS, htmlChecker::isSelectorUsed, options), options);
+    }
+
+    /**
+     * Processes the CSS against a page that has already been parsed and writes
+     * the used CSS directly to a writer. The writer is not closed.
+     *
+     * @param htmlChecker The checker of the HTML page.
+     * @param css         The raw CSS stylesheet to be processed.
+     * @param options     The configuration options for the CSS processing.
+     * @param out         The writer of the result.
+     * @throws IOException If an I/O error occurs during the process.
+     * @throws Exception   If CSS parsing fails or an unexpected error occurs.
+     */
+    public static void Process(VultureCSSCoreHTMLChecker htmlChecker, String css, VultureCSSOptions options, Writer out) throws IOException, Exception {
+
+        CascadingStyleSheet initialCSS = parseCSS(css, options);
+
+        writeCSS(getUsedRules(initialCSS, htmlChecker::isSelectorUsed, options), options, out);
+    }
+
+    /**
+     * Processes a stylesheet too big to be held in memory: the CSS is read
+     * from the reader one top-level rule at a time, each rule is parsed and
+     * checked on its own and, if used, written at once to the writer. Only
+     * the current rule and the page are kept in memory. The rules that can't
+     * be parsed can't be checked either: they are written unchanged. The
+     * reader and the writer are not closed.
+     *
+     * @param htmlChecker The checker of the HTML page.
+     * @param css         The reader of the CSS stylesheet.
+     * @param options     The configuration options for the CSS processing.
+     * @param out         The writer of the result.
+     * @throws IOException If the CSS can't be read or the result written.
+     */
+    public static void Process(VultureCSSCoreHTMLChecker htmlChecker, Reader css, VultureCSSOptions options, Writer out) throws IOException {
+
+        VultureCSSCoreRuleSplitter splitter = new VultureCSSCoreRuleSplitter(css);
+        CSSWriter cssWriter = createCSSWriter(options);
+        Writer nonClosingOut = new NonClosingWriter(out);
+        boolean first = true;
+
+        for (String statement = splitter.next(); statement != null; statement = splitter.next()) {
+
+            CascadingStyleSheet rule;
+
+            try {
+                rule = parseCSS(statement, options.getECSSVersion());
+            } catch (Exception e) {
+                rule = null;
+            }
+
+            CascadingStyleSheet finalRule = (rule == null) ? null : getUsedRules(rule, htmlChecker::isSelectorUsed);
+
+            if (finalRule != null && !finalRule.hasRules()) {
+                continue;
+            }
+
+            // The same blank line the writer puts between the rules of a stylesheet.
+            if (!first && !options.isMinifyCSSOutput()) {
+                out.write(cssWriter.getSettings().getNewLineString());
+            }
+
+            if (finalRule != null) {
+                cssWriter.writeCSS(finalRule, nonClosingOut);
+            } else {
+                // A rule that can't be parsed can't be checked either, so it is kept as it is.
+                out.write(statement.trim());
+                out.write(cssWriter.getSettings().getNewLineString());
+            }
+
+            first = false;
+
+            // The results of the selectors already checked would grow with the stylesheet.
+            if (htmlChecker.getSelectorCacheSize() > STREAM_SELECTOR_CACHE_SIZE) {
+                htmlChecker.clearSelectorCache();
+            }
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Processes a stylesheet too big to be held in memory, see
+     * {@link #Process(VultureCSSCoreHTMLChecker, Reader, VultureCSSOptions, Writer)}.
+     *
+     * @param html    The HTML content to check the CSS against.
+     * @param css     The reader of the CSS stylesheet.
+     * @param options The configuration options for the CSS processing.
+     * @param out     The writer of the result.
+     * @throws IOException If the CSS can't be read or the result written.
+     */
+    public static void Process(String html, Reader css, VultureCSSOptions options, Writer out) throws IOException {
+        Process(new VultureCSSCoreHTMLChecker(html, options), css, options, out);
+    }
+
+    /**
+     * Processes a stylesheet too big to be held in memory, read from a UTF-8
+     * stream, and writes the used CSS to a stream in UTF-8, see
+     * {@link #Process(VultureCSSCoreHTMLChecker, Reader, VultureCSSOptions, Writer)}.
+     * The streams are not closed.
+     *
+     * @param html    The HTML content to check the CSS against.
+     * @param css     The stream of the CSS stylesheet.
+     * @param options The configuration options for the CSS processing.
+     * @param out     The stream of the result.
+     * @throws IOException If the CSS can't be read or the result written.
+     */
+    public static void Process(String html, InputStream css, VultureCSSOptions options, OutputStream out) throws IOException {
+
+        Reader reader = new BufferedReader(new InputStreamReader(css, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        Process(html, reader, options, writer);
+    }
+
+    /**
+     * Processes one CSS stylesheet against many HTML pages. The CSS is parsed
+     * once and each distinct selector is checked page by page, until a page
+     * using it is found: a selector already proven used on one page is not
+     * checked again on the rest. Only one page is parsed at a time.
+     *
+     * @param htmls    The HTML pages to check the CSS against.
+     * @param css      The raw CSS stylesheet to be processed.
+     * @param options  The configuration options for the CSS processing.
+     * @return         The CSS used by at least one page, with the detail of
+     *                 the selectors found on each page.
+     * @throws IOException If an I/O error occurs during the process.
+     * @throws Exception   If CSS parsing fails or an unexpected error occurs.
+     */
+    public static MultiPageCarcass ProcessPages(List<String> htmls, String css, VultureCSSOptions options) throws IOException, Exception {
+
+        CascadingStyleSheet initialCSS = parseCSS(css, options);
+
+        // All the distinct selectors still to be found, in stylesheet order.
+        Set<CSSSelector> unusedSelectors = new LinkedHashSet<>();
+        collectSelectors(initialCSS, unusedSelectors);
+
+        Map<CSSSelector, Boolean> usedSelectors = new HashMap<>();
+        List<PageCarcass> pages = new ArrayList<>();
+
+        for (String html : htmls) {
+
+            PageCarcass page = new PageCarcass();
+            pages.add(page);
+
+            if (unusedSelectors.isEmpty() || html == null) {
+                continue;
+            }
+
+            VultureCSSCoreHTMLChecker htmlChecker = VultureCSSCore.createHTMLChecker(Jsoup.parse(html), options);
+            List<String> pageSelectors = new ArrayList<>();
+
+            page.setCheckedSelectors(unusedSelectors.size());
+
+            for (var iterator = unusedSelectors.iterator(); iterator.hasNext();) {
+
+                CSSSelector selector = iterator.next();
+
+                if (htmlChecker.isSelectorUsed(selector)) {
+                    usedSelectors.put(selector, Boolean.TRUE);
+                    pageSelectors.add(selector.getAsCSSString());
+                    iterator.remove();
+                }
+            }
+
+            page.setUsedSelectors(pageSelectors);
+        }
+
+        CascadingStyleSheet finalCSS = getUsedRules(initialCSS, usedSelectors::containsKey);
+
+        MultiPageCarcass carcass = new MultiPageCarcass();
+        carcass.setUsedCSS(writeCSS(finalCSS, options));
+        carcass.setPages(pages);
+
+        return carcass;
+    }
+
+    /**
+     * Reads a CSS stylesheet, from the cache of the options if there is one.
+     *
+     * @param css     The raw CSS stylesheet.
+     * @param options The configuration options for the CSS processing.
+     * @return        The parsed stylesheet, owned by the caller.
+     * @throws Exception If the CSS can't be parsed.
+     */
+    static CascadingStyleSheet parseCSS(String css, VultureCSSOptions options) throws Exception {
+
+        VultureCSSCoreStyleSheetCache cache = options.getStyleSheetCache();
+
+        ECSSVersion version = options.getECSSVersion();
+
+        if (cache == null) {
+            return parseCSS(css, version, options);
+        }
+
+        return cache.get(css, version, () -> parseCSS(css, version, options));
+    }
+
+    /**
+     * Reads a CSS stylesheet, in chunks parsed concurrently if requested by
+     * the options and the stylesheet is big enough. If a chunk can't be
+     * parsed, the stylesheet is parsed again as a whole.
+     */
+    private static CascadingStyleSheet parseCSS(String css, ECSSVersion version, VultureCSSOptions options) throws Exception {
+
+        if (options.isParallelParsing() && css.length() >= options.getParallelParsingThreshold()) {
+
+            CascadingStyleSheet initialCSS = VultureCSSCoreChunkedParser.parse(css, version, getForkJoinPool(options));
+
+            if (initialCSS != null) {
+                return initialCSS;
+            }
+        }
+
+        return parseCSS(css, version);
+    }
+
+    /**
+     * Reads a CSS stylesheet using ph-css. If ph-css fails to parse the CSS,
+     * jStyleParser is used to correct and re-parse it.
+     *
+     * @param css The raw CSS stylesheet.
+     * @return The parsed stylesheet.
+     * @throws Exception If the CSS can't be parsed.
+     */
+    static CascadingStyleSheet parseCSS(String css) throws Exception {
+        return parseCSS(css, ECSSVersion.LATEST);
+    }
+
+    /**
+     * Reads a CSS stylesheet of the given CSS version using ph-css, with the
+     * jStyleParser fallback.
+     *
+     * @param css     The raw CSS stylesheet.
+     * @param version The CSS version.
+     * @return The parsed stylesheet.
+     * @throws Exception If the CSS can't be parsed.
+     */
+    static CascadingStyleSheet parseCSS(String css, ECSSVersion version) throws Exception {
 
         // Read the initial CSS stylesheet using ph-css.
-        CascadingStyleSheet initialCSS = CSSReader.readFromString(css, ECSSVersion.LATEST);
+        CascadingStyleSheet initialCSS = CSSReader.readFromString(css, version);
 
         // If ph-css fails to parse the CSS (returns null), use jStyleParser to correct and re-parse.
         if (initialCSS == null) {
             String correctedCSS = VultureCSSWithjStyleParser.ParseCSS(css);
-            initialCSS = CSSReader.readFromString(correctedCSS, ECSSVersion.LATEST);
+            initialCSS = CSSReader.readFromString(correctedCSS, version);
         }
 
         // If the CSS is still null, throw an exception indicating a failure to parse the CSS.
         if (initialCSS == null) {
             throw new Exception("Failed to parse CSS");
-        } else if (html != null) {
+        }
 
-            // Create an HTML checker instance to verify the usage of CSS rules in the provided HTML.
-            VultureCSSCoreHTMLChecker htmlChecker = new VultureCSSCoreHTMLChecker(html, options);
+        return initialCSS;
+    }
 
-            // Get all the top-level rules from the initial CSS.
-            ICommonsList<ICSSTopLevelRule> rules = initialCSS.getAllRules();
+    /**
+     * Creates a stylesheet with the rules of the initial CSS that are used.
+     * Style rules inside @media and @supports are checked too, all the other
+     * rules are kept.
+     *
+     * @param initialCSS     The parsed CSS stylesheet.
+     * @param isSelectorUsed The function that tells if a selector is used.
+     * @return               A new stylesheet with the used rules.
+     */
+    static CascadingStyleSheet getUsedRules(CascadingStyleSheet initialCSS, Predicate<CSSSelector> isSelectorUsed) {
+
+        CascadingStyleSheet finalCSS = new CascadingStyleSheet();
+
+        // Get all the top-level rules from the initial CSS.
+        ICommonsList<ICSSTopLevelRule> rules = initialCSS.getAllRules();
 
-            // Iterate over each CSS rule and check if it is used within the HTML content.
-            for (int i = 0; i < rules.size(); i++) {
-                ICSSTopLevelRule rule = rules.get(i);
+        // Iterate over each CSS rule and check if it is used within the HTML content.
+        for (int i = 0; i < rules.size(); i++) {
+            ICSSTopLevelRule rule = rules.get(i);
 
-                if (rule instanceof CSSStyleRule styleRule) {
+            if (rule instanceof CSSStyleRule styleRule) {
 
-                    // Check all selectors in the style rule.
-                    ICommonsList<CSSSelector> allSelectors = styleRule.getAllSelectors();
+                // Check all selectors in the style rule.
+                ICommonsList<CSSSelector> allSelectors = styleRule.getAllSelectors();
 
-                    // Handle multiple selectors in a single rule.
-                    if (allSelectors.size() > 1) {
-                        CSSStyleRule resultRule = htmlChecker.multiSelectorControl(styleRule);
-                        if (resultRule != null && resultRule.hasDeclarations() && resultRule.hasSelectors()) {
-                            finalCSS.addRule(resultRule);
-                        }
-                    } else if (htmlChecker.isSelectorUsed(allSelectors.get(0).getAsCSSString())) {
-                        finalCSS.addRule(styleRule);
+                // Handle multiple selectors in a single rule.
+                if (allSelectors.size() > 1) {
+                    CSSStyleRule resultRule = getUsedSelectorsFromStyleRule(styleRule, isSelectorUsed);
+                    if (resultRule != null && resultRule.hasDeclarations() && resultRule.hasSelectors()) {
+                        finalCSS.addRule(resultRule);
                     }
+                } else if (isSelectorUsed.test(allSelectors.get(0))) {
+                    finalCSS.addRule(styleRule);
+                }
 
-                } else if (rule instanceof CSSMediaRule mediaRule) {
+            } else if (rule instanceof CSSMediaRule mediaRule) {
 
-                    CSSMediaRule finalMediaRule = getUsedRulesFromMediaRule(mediaRule, htmlChecker);
+                CSSMediaRule finalMediaRule = getUsedRulesFromMediaRule(mediaRule, isSelectorUsed);
 
-                    if (finalMediaRule != null) {
-                        finalCSS.addRule(finalMediaRule);
-                    }
+                if (finalMediaRule != null) {
+                    finalCSS.addRule(finalMediaRule);
+                }
 
-                } else if (rule instanceof CSSSupportsRule supportsRule) {
+            } else if (rule instanceof CSSSupportsRule supportsRule) {
 
-                    CSSSupportsRule finalSupportsRule = getUsedRulesFromSupportsRule(supportsRule, htmlChecker);
+                CSSSupportsRule finalSupportsRule = getUsedRulesFromSupportsRule(supportsRule, isSelectorUsed);
 
-                    if (finalSupportsRule != null) {
-                        finalCSS.addRule(finalSupportsRule);
-                    }
+                if (finalSupportsRule != null) {
+                    finalCSS.addRule(finalSupportsRule);
+                }
+
+            } else {
+                finalCSS.addRule(rule);
+            }
+        }
+
+        return finalCSS;
+    }
 
-                } else {
-                    finalCSS.addRule(rule);
+    /**
+     * Creates a stylesheet with the rules of the initial CSS that are used. If
+     * requested by the options and the stylesheet is big enough, the
+     * selectors, including the ones inside @media and @supports, are first
+     * matched concurrently on a fork/join pool, then the stylesheet is
+     * assembled in its original order with the results.
+     *
+     * @param initialCSS     The parsed CSS stylesheet.
+     * @param isSelectorUsed The function that tells if a selector is used, it
+     *                       must be thread-safe.
+     * @param options        The configuration options for the CSS processing.
+     * @return               A new stylesheet with the used rules.
+     */
+    static CascadingStyleSheet getUsedRules(CascadingStyleSheet initialCSS, Predicate<CSSSelector> isSelectorUsed, VultureCSSOptions options) {
+
+        if (options.isParallelRules()) {
+
+            List<CSSSelector> selectors = new ArrayList<>();
+            collectSelectors(initialCSS, selectors);
+
+            if (selectors.size() >= Math.max(1, options.getParallelRulesThreshold())) {
+
+                ForkJoinPool pool = getForkJoinPool(options);
+
+                boolean[] used = new boolean[selectors.size()];
+                pool.invoke(new MatchSelectorsTask(selectors, used, isSelectorUsed, 0, used.length));
+
+                Map<CSSSelector, Boolean> results = new IdentityHashMap<>(used.length);
+                for (int i = 0; i < used.length; i++) {
+                    results.put(selectors.get(i), used[i]);
                 }
+
+                return getUsedRules(initialCSS, (selector) -> {
+                    Boolean result = results.get(selector);
+                    return result != null ? result : isSelectorUsed.test(selector);
+                });
             }
         }
 
+        return getUsedRules(initialCSS, isSelectorUsed);
+    }
+
+    /**
+     * Gets the pool of the concurrent parsing and matching: the executor of
+     * the options if it is a fork/join one, the common pool otherwise.
+     */
+    static ForkJoinPool getForkJoinPool(VultureCSSOptions options) {
+        return options.getExecutor() instanceof ForkJoinPool forkJoinPool ? forkJoinPool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Matches a range of selectors, splitting it in two halves until it is
+     * small enough to be checked by a single thread. Each result is stored at
+     * the index of its selector.
+     */
+    private static class MatchSelectorsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private static final int BATCH_SIZE = 64;
+
+        private final List<CSSSelector> selectors;
+        private final boolean[] used;
+        private final Predicate<CSSSelector> isSelectorUsed;
+        private final int from;
+        private final int to;
+
+        MatchSelectorsTask(List<CSSSelector> selectors, boolean[] used, Predicate<CSSSelector> isSelectorUsed, int from, int to) {
+            this.selectors = selectors;
+            this.used = used;
+            this.isSelectorUsed = isSelectorUsed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (this.to - this.from <= BATCH_SIZE) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.used[i] = this.isSelectorUsed.test(this.selectors.get(i));
+                }
+                return;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+
+            invokeAll(new MatchSelectorsTask(this.selectors, this.used, this.isSelectorUsed, this.from, middle),
+                    new MatchSelectorsTask(this.selectors, this.used, this.isSelectorUsed, middle, this.to));
+        }
+    }
+
+    /**
+     * Collects the selectors checked by {@link #getUsedRules}.
+     */
+    private static void collectSelectors(CascadingStyleSheet initialCSS, Collection<CSSSelector> selectors) {
+
+        for (ICSSTopLevelRule rule : initialCSS.getAllRules()) {
+
+            if (rule instanceof CSSStyleRule styleRule) {
+                collectSelectors(styleRule, selectors);
+            } else if (rule instanceof CSSMediaRule mediaRule) {
+                mediaRule.getAllStyleRules().forEach((styleRule) -> collectSelectors(styleRule, selectors));
+            } else if (rule instanceof CSSSupportsRule supportsRule) {
+                supportsRule.getAllStyleRules().forEach((styleRule) -> collectSelectors(styleRule, selectors));
+            }
+        }
+    }
+
+    private static void collectSelectors(CSSStyleRule styleRule, Collection<CSSSelector> selectors) {
+
+        for (CSSSelector selector : styleRule.getAllSelectors()) {
+            if (selector.hasMembers()) {
+                selectors.add(selector);
+            }
+        }
+    }
+
+    /**
+     * Writes the stylesheet as a string, in the CSS version of the options and
+     * minified if requested by the options.
+     *
+     * @param finalCSS The stylesheet to write.
+     * @param options  The configuration options for the CSS processing.
+     * @return         The CSS as a string.
+     */
+    static String writeCSS(CascadingStyleSheet finalCSS, VultureCSSOptions options) {
+
+        return createCSSWriter(options).getCSSAsString(finalCSS);
+    }
+
+    /**
+     * Writes the stylesheet to a writer, like {@link #writeCSS(CascadingStyleSheet, VultureCSSOptions)}.
+     * The writer is not closed.
+     *
+     * @param finalCSS The stylesheet to write.
+     * @param options  The configuration options for the CSS processing.
+     * @param out      The writer.
+     * @throws IOException If the writer fails.
+     */
+    static void writeCSS(CascadingStyleSheet finalCSS, VultureCSSOptions options, Writer out) throws IOException {
+
+        // CSSWriter closes the writer it receives.
+        createCSSWriter(options).writeCSS(finalCSS, new NonClosingWriter(out));
+    }
+
+    /**
+     * Writes the stylesheet to a stream, in UTF-8. The stream is flushed but
+     * not closed.
+     *
+     * @param finalCSS The stylesheet to write.
+     * @param options  The configuration options for the CSS processing.
+     * @param out      The stream.
+     * @throws IOException If the stream fails.
+     */
+    static void writeCSS(CascadingStyleSheet finalCSS, VultureCSSOptions options, OutputStream out) throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        writeCSS(finalCSS, options, writer);
+
+        writer.flush();
+    }
+
+    /**
+     * Writes the stylesheet to a file, in UTF-8. The file is created or
+     * replaced.
+     *
+     * @param finalCSS The stylesheet to write.
+     * @param options  The configuration options for the CSS processing.
+     * @param file     The file.
+     * @throws IOException If the file can't be written.
+     */
+    static void writeCSS(CascadingStyleSheet finalCSS, VultureCSSOptions options, Path file) throws IOException {
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeCSS(finalCSS, options, writer);
+        }
+    }
+
+    private static CSSWriter createCSSWriter(VultureCSSOptions options) {
+
         // Configure CSS writer settings.
-        final CSSWriterSettings writerSettings = new CSSWriterSettings(ECSSVersion.LATEST, false);
+        final CSSWriterSettings writerSettings = new CSSWriterSettings(options.getECSSVersion(), false);
 
         if (options.isMinifyCSSOutput()) {
             writerSettings.setOptimizedOutput(true);
             writerSettings.setRemoveUnnecessaryCode(true);
         }
 
-        // Write the final CSS as a string.
         final CSSWriter cssWriter = new CSSWriter(writerSettings);
         cssWriter.setHeaderText(""); // Set header text to an empty string.
 
-        return cssWriter.getCSSAsString(finalCSS);
+        return cssWriter;
     }
 }
-
@@ -24,32 +24,61 @@
 package com.dotmaui.vulturecss.core;
 
 import com.dotmaui.api.cssmin.DotMauiCSSMinifyClient;
-import static com.dotmaui.vulturecss.core.VultureCSSCoreParser.CSSUtility.getRulesFromString;
 import static com.dotmaui.vulturecss.core.VultureCSSCoreParser.extractAllStyleSheetsUrls;
 import com.dotmaui.vulturecss.models.Carcass;
+import com.dotmaui.vulturecss.models.MultiPageCarcass;
 import com.dotmaui.vulturecss.models.VultureCSSOptions;
 import com.dotmaui.vulturecss.utils.Functions;
-import com.dotmaui.vulturecss.utils.Interface;
+import com.dotmaui.vulturecss.utils.HttpFetcher;
 import com.dotmaui.vulturecss.utils.MinifyWithPhCSS;
+import com.dotmaui.vulturecss.utils.WebClientPool;
 import com.helger.commons.collection.impl.ICommonsList;
-import com.helger.css.ECSSVersion;
 import com.helger.css.decl.CSSImportRule;
 import com.helger.css.decl.CSSMediaRule;
+import com.helger.css.decl.CSSNamespaceRule;
 import com.helger.css.decl.CSSStyleRule;
 import com.helger.css.decl.CascadingStyleSheet;
 import com.helger.css.decl.ICSSTopLevelRule;
-import com.helger.css.writer.CSSWriter;
-import com.helger.css.writer.CSSWriterSettings;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import org.json.JSONObject;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import static com.dotmaui.vulturecss.utils.Interface.downloadFromUrl;
-import static com.dotmaui.vulturecss.utils.Interface.downloadRenderedPage;
+import static com.dotmaui.vulturecss.utils.Interface.downloadRenderedDocument;
 
 public class VultureCSSCore {
 
+    /**
+     * Maximum number of threads of the temporary pool used to process the
+     * stylesheets of a page concurrently, when the options have no executor.
+     */
+    private static final int MAX_STYLESHEET_THREADS = 16;
+
+    /**
+     * Maximum number of threads of the temporary pool used to download the
+     * scripts of a page concurrently, when the options have no executor.
+     */
+    private static final int MAX_SCRIPT_THREADS = 8;
+
     public VultureCSSCore() {
     }
 
@@ -111,7 +140,7 @@ public class VultureCSSCore {
 
         if (this.cssUrl != null) {
 
-            this.css = downloadFromUrl(this.cssUrl);
+            this.css = downloadFromUrl(this.cssUrl, getHttpFetcher());
 
             if (this.css == null) {
                 throw new Exception("The download of the CSS file has failed");
@@ -119,12 +148,34 @@ public class VultureCSSCore {
 
         }
 
+        // The page already parsed or rendered, used as it is, without serializing it.
+        Document htmlDocument = null;
+        boolean rendered = false;
+        String renderReason = null;
+
         if (this.htmlUrl != null) {
 
-            if (this.options.isUseStaticHTMLFromWebPage()) {
-                this.html = downloadFromUrl(this.htmlUrl);
+            if (this.options.isAutoRenderHTML()) {
+
+                // The static HTML first, the page is rendered only if it looks like it needs it.
+                this.html = downloadFromUrl(this.htmlUrl, getHttpFetcher());
+
+                if (this.html != null) {
+
+                    htmlDocument = Jsoup.parse(this.html, this.htmlUrl.toExternalForm());
+                    renderReason = VultureCSSCoreRenderDetector.getRenderReason(htmlDocument);
+
+                    if (renderReason != null) {
+                        htmlDocument = downloadRenderedDocument(this.htmlUrl, getHttpFetcher(), getWebClientPool());
+                        rendered = true;
+                    }
+                }
+
+            } else if (this.options.isUseStaticHTMLFromWebPage()) {
+                this.html = downloadFromUrl(this.htmlUrl, getHttpFetcher());
             } else {
-                this.html = downloadRenderedPage(this.htmlUrl);
+                htmlDocument = downloadRenderedDocument(this.htmlUrl, getHttpFetcher(), getWebClientPool());
+                rendered = true;
             }
 
             if (this.html == null) {
@@ -133,30 +184,35 @@ public class VultureCSSCore {
 
         }
 
-        if (this.css.equals("") && this.html.equals("")) {
+        boolean hasHtml = htmlDocument != null || !"".equals(this.html);
+
+        if (this.css.equals("") && !hasHtml) {
             throw new Exception("Nothing to process");
         }
 
         List<Carcass> carcasses = new ArrayList<>();
 
-        if (!"".equals(this.html) && "".equals(this.css)) {
+        if (hasHtml && "".equals(this.css)) {
 
-            carcasses = extractAllStyleSheetsUrls(html, this.htmlUrl);
+            // The page is parsed and indexed once, for all its stylesheets.
+            Document document = (htmlDocument != null) ? htmlDocument : Jsoup.parse(this.html, (this.htmlUrl != null) ? this.htmlUrl.toExternalForm() : "");
+            VultureCSSCoreHTMLChecker htmlChecker = createHTMLChecker(document, this.options);
 
-            for (Carcass c : carcasses) {
+            carcasses = extractAllStyleSheetsUrls(document, this.htmlUrl);
 
-                URL css_url = new URL(c.getPath());
+            if (this.options.getOutputDirectory() != null && !this.options.isMergeAll()) {
+                assignOutputFiles(carcasses);
+            }
 
-                String css_string_from_url = Interface.downloadFromUrl(css_url);
-                String used_css = "";
+            if (this.options.isParallelStyleSheets() && carcasses.size() > 1) {
 
-                try {
-                    used_css = CompareCSSHTML.Process(this.html, css_string_from_url, this.options);
-                } catch (Exception ex) {
-                    c.setParseError(true);
-                }
+                processStyleSheetsConcurrently(carcasses, htmlChecker);
 
-                c.setUsedCSS(used_css);
+            } else {
+
+                for (Carcass c : carcasses) {
+                    processStyleSheet(c, htmlChecker, null);
+                }
 
             }
 
@@ -177,13 +233,14 @@ public class VultureCSSCore {
 
             }
 
-        } else if (!"".equals(this.html)) {
+        } else if (hasHtml) {
 
             Carcass carcass = new Carcass();
             String used_css = "";
 
             try {
-                used_css = CompareCSSHTML.Process(this.html, this.css, this.options);
+                Document document = (htmlDocument != null) ? htmlDocument : Jsoup.parse(this.html, (this.htmlUrl != null) ? this.htmlUrl.toExternalForm() : "");
+                used_css = CompareCSSHTML.Process(createHTMLChecker(document, this.options), this.css, this.options);
             } catch (Exception ex) {
                 carcass.setParseError(true);
             }
@@ -201,6 +258,12 @@ public class VultureCSSCore {
 
         }
 
+        // How the page was read, with the reason of the automatic mode.
+        for (Carcass c : carcasses) {
+            c.setRendered(rendered);
+            c.setRenderReason(renderReason);
+        }
+
         // If CDN mode is enabled, I cycle through all the carcasses and save each CSS in a file on the CDN.
         if (this.options.isCDNMode()) {
 
@@ -232,17 +295,302 @@ public class VultureCSSCore {
 
     }
 
-    private static String mergeAndOptimize(String css) throws Exception {
+    /**
+     * Downloads the stylesheet of the carcass and keeps only the CSS used by
+     * the page.
+     *
+     * @param c The carcass with the URL of the stylesheet.
+     * @param htmlChecker The checker of the page.
+     * @param hostPermits If not null, the download waits for one of these
+     * permits, to limit the concurrent connections to the same host.
+     * @throws MalformedURLException
+     */
+    private void processStyleSheet(Carcass c, VultureCSSCoreHTMLChecker htmlChecker, Semaphore hostPermits) throws MalformedURLException {
+
+        URL css_url = new URL(c.getPath());
+
+        String css_string_from_url;
+
+        if (hostPermits == null) {
+            css_string_from_url = downloadFromUrl(css_url, getHttpFetcher());
+        } else {
+            hostPermits.acquireUninterruptibly();
+            try {
+                css_string_from_url = downloadFromUrl(css_url, getHttpFetcher());
+            } finally {
+                hostPermits.release();
+            }
+        }
+
+        if (c.getUsedCSSFile() != null) {
+
+            // The result goes straight to its file, without being kept in memory.
+            try (Writer out = Files.newBufferedWriter(c.getUsedCSSFile(), StandardCharsets.UTF_8)) {
+                CompareCSSHTML.Process(htmlChecker, css_string_from_url, this.options, out);
+            } catch (Exception ex) {
+                c.setParseError(true);
+                discardUsedCSSFile(c);
+            }
+
+            return;
+        }
+
+        String used_css = "";
+
+        try {
+            used_css = CompareCSSHTML.Process(htmlChecker, css_string_from_url, this.options);
+        } catch (Exception ex) {
+            c.setParseError(true);
+        }
+
+        c.setUsedCSS(used_css);
+
+    }
+
+    /**
+     * Removes the partial file of a stylesheet that could not be processed.
+     */
+    private static void discardUsedCSSFile(Carcass c) {
+
+        try {
+            Files.deleteIfExists(c.getUsedCSSFile());
+        } catch (IOException ex) {
+            // The partial file is left behind, the carcass doesn't reference it anymore.
+        }
+
+        c.setUsedCSSFile(null);
+        c.setUsedCSS("");
+
+    }
+
+    /**
+     * Gives each carcass a file in the output folder of the options, named
+     * after its stylesheet. Names used by more than one stylesheet get a
+     * numeric suffix.
+     *
+     * @param carcasses The carcasses with the URLs of the stylesheets.
+     * @throws IOException If the folder can't be created.
+     */
+    private void assignOutputFiles(List<Carcass> carcasses) throws IOException {
+
+        Path directory = Files.createDirectories(this.options.getOutputDirectory());
+        Set<String> names = new HashSet<>();
+
+        for (Carcass c : carcasses) {
+
+            String name = getFileName(c.getPath());
+            String base = name.substring(0, name.length() - ".css".length());
+
+            for (int i = 2; !names.add(name); i++) {
+                name = base + "-" + i + ".css";
+            }
+
+            c.setUsedCSSFile(directory.resolve(name));
+        }
+
+    }
+
+    private static String getFileName(String url) {
+
+        String name;
+
+        try {
+            name = new URL(url).getPath();
+        } catch (MalformedURLException ex) {
+            name = url;
+        }
+
+        name = name.substring(name.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_");
+
+        if (name.isEmpty()) {
+            name = "style";
+        }
+
+        return name.endsWith(".css") ? name : name + ".css";
+
+    }
+
+    /**
+     * Downloads and processes the stylesheets of a page concurrently, on the
+     * executor of the options or on a temporary thread pool. Each result is
+     * stored in its own carcass, so the original order of the links is kept.
+     *
+     * @param carcasses The carcasses with the URLs of the stylesheets.
+     * @param htmlChecker The checker of the page, shared by all the tasks.
+     * @throws Exception
+     */
+    private void processStyleSheetsConcurrently(List<Carcass> carcasses, VultureCSSCoreHTMLChecker htmlChecker) throws Exception {
+
+        Executor executor = this.options.getExecutor();
+        ExecutorService ownExecutor = null;
+
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(Math.min(carcasses.size(), MAX_STYLESHEET_THREADS));
+            executor = ownExecutor;
+        }
+
+        Map<String, Semaphore> permitsByHost = new HashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try {
+
+            for (Carcass c : carcasses) {
+
+                Semaphore hostPermits = permitsByHost.computeIfAbsent(getHost(c.getPath()),
+                        (host) -> new Semaphore(Math.max(1, this.options.getMaxConnectionsPerHost())));
+
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        processStyleSheet(c, htmlChecker, hostPermits);
+                    } catch (MalformedURLException ex) {
+                        throw new CompletionException(ex);
+                    }
+                }, executor));
+
+            }
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        } catch (CompletionException ex) {
+
+            if (ex.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+
+            throw ex;
+
+        } finally {
+
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+
+        }
+
+    }
+
+    /**
+     * Creates the checker of a page. If the scripts are scanned for class
+     * names, the scripts linked by the page are downloaded here, concurrently
+     * on the executor of the options or on a temporary thread pool, with the
+     * fetcher of the options.
+     *
+     * @param document The page, parsed with its URL so that the relative
+     * links of its scripts can be resolved.
+     * @param options
+     * @return the checker
+     */
+    public static VultureCSSCoreHTMLChecker createHTMLChecker(Document document, VultureCSSOptions options) {
+
+        if (!options.isScanScriptClasses()) {
+            return new VultureCSSCoreHTMLChecker(document, null, options);
+        }
+
+        HttpFetcher fetcher = (options.getHttpFetcher() != null) ? options.getHttpFetcher() : HttpFetcher.getShared();
+        Executor executor = options.getExecutor();
+        ExecutorService ownExecutor = null;
+
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(MAX_SCRIPT_THREADS);
+            executor = ownExecutor;
+        }
+
+        try {
+            return new VultureCSSCoreHTMLChecker(document, VultureCSSCoreScriptScanner.getClassNames(document, fetcher, executor), options);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+
+    }
+
+    /**
+     * Returns the fetcher of the options, or the shared one.
+     */
+    private HttpFetcher getHttpFetcher() {
+        return (this.options.getHttpFetcher() != null) ? this.options.getHttpFetcher() : HttpFetcher.getShared();
+    }
+
+    /**
+     * Returns the pool of the clients of the options, or the shared one.
+     */
+    private WebClientPool getWebClientPool() {
+        return (this.options.getWebClientPool() != null) ? this.options.getWebClientPool() : WebClientPool.getShared();
+    }
+
+    private static String getHost(String url) {
+
+        try {
+            return new URL(url).getHost();
+        } catch (MalformedURLException ex) {
+            return "";
+        }
+
+    }
+
+    /**
+     * Processes the CSS, specified as a string or as a URL, against many HTML
+     * pages at once. The CSS is parsed only once and the result contains the
+     * rules used by at least one page.
+     *
+     * @param htmls The HTML pages.
+     * @return The used CSS, with the detail of each page.
+     * @throws Exception
+     */
+    public MultiPageCarcass ProcessPages(List<String> htmls) throws Exception {
+
+        if (this.options == null) {
+            this.options = new VultureCSSOptions();
+        }
+
+        this.css = (this.css == null) ? "" : this.css.trim();
+
+        if (!this.css.equals("") && this.cssUrl != null) {
+            throw new Exception("It is currently not possible to specify URLs and strings simultaneously");
+        }
+
+        if (this.cssUrl != null) {
+
+            this.css = downloadFromUrl(this.cssUrl, getHttpFetcher());
+
+            if (this.css == null) {
+                throw new Exception("The download of the CSS file has failed");
+            }
+
+        }
+
+        if (this.css.equals("") || htmls == null || htmls.isEmpty()) {
+            throw new Exception("Nothing to process");
+        }
+
+        return CompareCSSHTML.ProcessPages(htmls, this.css, this.options);
+
+    }
+
+    /**
+     * Parses, merges, optimizes and writes the CSS on a single stylesheet
+     * tree: the result is written once, with the CSS version and the output
+     * settings of the options.
+     */
+    private static CascadingStyleSheet mergeAndOptimize(String css, VultureCSSOptions options) throws Exception {
 
         CascadingStyleSheet newStyleSheetWithAllDeclarationsFinal = new CascadingStyleSheet();
 
-        ICommonsList<ICSSTopLevelRule> rules = getRulesFromString(css);
+        CascadingStyleSheet initialCSS = CompareCSSHTML.parseCSS(css, options);
 
-        CascadingStyleSheet newStyleSheetWithAllDeclarations = VultureCSSCoreMergify.MergeRules(rules);
+        // @import and @namespace rules are not top-level rules, they are kept as they are.
+        for (CSSImportRule cSSImportRule : initialCSS.getAllImportRules()) {
+            newStyleSheetWithAllDeclarationsFinal.addImportRule(cSSImportRule);
+        }
 
-        ICommonsList<ICSSTopLevelRule> mergedRules = newStyleSheetWithAllDeclarations.getAllRules();
+        for (CSSNamespaceRule cSSNamespaceRule : initialCSS.getAllNamespaceRules()) {
+            newStyleSheetWithAllDeclarationsFinal.addNamespaceRule(cSSNamespaceRule);
+        }
+
+        CascadingStyleSheet newStyleSheetWithAllDeclarations = VultureCSSCoreMergify.MergeRules(initialCSS.getAllRules());
 
-        int importRulesIndex = 0;
+        ICommonsList<ICSSTopLevelRule> mergedRules = newStyleSheetWithAllDeclarations.getAllRules();
 
         for (ICSSTopLevelRule ruleCompare : mergedRules) {
 
@@ -264,12 +612,6 @@ public class VultureCSSCore {
 
                 }
 
-            } else if (ruleCompare instanceof CSSImportRule cSSImportRule) {
-
-                newStyleSheetWithAllDeclarationsFinal.addImportRule(importRulesIndex, cSSImportRule);
-
-                importRulesIndex++;
-
             } else if (ruleCompare != null) {
 
                 // CSSViewportRule and others.
@@ -282,14 +624,7 @@ public class VultureCSSCore {
             }
         }
 
-        final CSSWriterSettings aSettings;
-        aSettings = new CSSWriterSettings(ECSSVersion.LATEST, false);
-
-        final CSSWriter aWriter = new CSSWriter(aSettings);
-
-        aWriter.setHeaderText("");
-
-        return MinifyWithPhCSS.Process(aWriter.getCSSAsString(newStyleSheetWithAllDeclarationsFinal));
+        return newStyleSheetWithAllDeclarationsFinal;
     }
 
     /**
@@ -304,13 +639,32 @@ public class VultureCSSCore {
      */
     public static String mergeAndOptimizeCSSFromUrls(List<String> urls) throws MalformedURLException, Exception {
 
+        return mergeAndOptimizeCSSFromUrls(urls, new VultureCSSOptions());
+
+    }
+
+    /**
+     * Merges the CSS content from a list of URLs into a single string and
+     * optimizes it, with the given options.
+     *
+     * @param urls A list of URLs pointing to CSS files to be merged.
+     * @param options The options: the CSS version, the output settings and
+     * the fetcher used for the downloads.
+     * @return A string containing the merged and optimized CSS content.
+     * @throws MalformedURLException If any URL is malformed.
+     * @throws Exception If an error occurs during download or optimization.
+     */
+    public static String mergeAndOptimizeCSSFromUrls(List<String> urls, VultureCSSOptions options) throws MalformedURLException, Exception {
+
+        HttpFetcher fetcher = (options.getHttpFetcher() != null) ? options.getHttpFetcher() : HttpFetcher.getShared();
+
         StringBuilder mergedCSS = new StringBuilder();
 
         // Download each CSS file and append it to the merged CSS content.
         for (String urlString : urls) {
 
             // Download the CSS content from the current URL.
-            String tempCSS = downloadFromUrl(new URL(urlString));
+            String tempCSS = downloadFromUrl(new URL(urlString), fetcher);
 
             // Append the downloaded CSS content to the mergedCSS StringBuilder.
             if (tempCSS != null) {
@@ -320,7 +674,7 @@ public class VultureCSSCore {
         }
 
         // Call the mergeAndOptimize function with the concatenated CSS content.
-        return mergeAndOptimize(mergedCSS.toString());
+        return CompareCSSHTML.writeCSS(mergeAndOptimize(mergedCSS.toString(), options), options);
     }
 
     /**
@@ -331,7 +685,66 @@ public class VultureCSSCore {
      */
     public static String mergeAndOptimizeCSSFromString(String css) throws Exception {
 
-        return mergeAndOptimize(css);
+        return mergeAndOptimizeCSSFromString(css, new VultureCSSOptions());
+
+    }
+
+    /**
+     * Merges and optimizes the CSS with the given options.
+     *
+     * @param css The CSS to merge and optimize.
+     * @param options The options: the CSS version and the output settings.
+     * @return The merged and optimized CSS.
+     * @throws java.lang.Exception If the CSS can't be parsed.
+     */
+    public static String mergeAndOptimizeCSSFromString(String css, VultureCSSOptions options) throws Exception {
+
+        return CompareCSSHTML.writeCSS(mergeAndOptimize(css, options), options);
+
+    }
+
+    /**
+     * Merges and optimizes the CSS and writes it directly to a writer,
+     * without building it as a string. The writer is not closed.
+     *
+     * @param css The CSS to merge and optimize.
+     * @param options The options: the CSS version and the output settings.
+     * @param out The writer of the result.
+     * @throws java.lang.Exception If the CSS can't be parsed or written.
+     */
+    public static void mergeAndOptimizeCSSFromString(String css, VultureCSSOptions options, Writer out) throws Exception {
+
+        CompareCSSHTML.writeCSS(mergeAndOptimize(css, options), options, out);
+
+    }
+
+    /**
+     * Merges and optimizes the CSS and writes it directly to a stream, in
+     * UTF-8. The stream is not closed.
+     *
+     * @param css The CSS to merge and optimize.
+     * @param options The options: the CSS version and the output settings.
+     * @param out The stream of the result.
+     * @throws java.lang.Exception If the CSS can't be parsed or written.
+     */
+    public static void mergeAndOptimizeCSSFromString(String css, VultureCSSOptions options, OutputStream out) throws Exception {
+
+        CompareCSSHTML.writeCSS(mergeAndOptimize(css, options), options, out);
+
+    }
+
+    /**
+     * Merges and optimizes the CSS and writes it directly to a file, in UTF-8.
+     * The file is created or replaced.
+     *
+     * @param css The CSS to merge and optimize.
+     * @param options The options: the CSS version and the output settings.
+     * @param file The file of the result.
+     * @throws java.lang.Exception If the CSS can't be parsed or written.
+     */
+    public static void mergeAndOptimizeCSSFromString(String css, VultureCSSOptions options, Path file) throws Exception {
+
+        CompareCSSHTML.writeCSS(mergeAndOptimize(css, options), options, file);
 
     }
 
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import com.helger.css.ECSSVersion;
+import com.helger.css.decl.CascadingStyleSheet;
+import com.helger.css.reader.CSSReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses a big stylesheet on many cores. The CSS is split into chunks of whole
+ * top-level statements by {@link VultureCSSCoreRuleSplitter}, each chunk is
+ * parsed with ph-css on a fork/join pool and the results are concatenated in
+ * order into a single stylesheet.
+ *
+ * @author .Maui
+ */
+public class VultureCSSCoreChunkedParser {
+
+    /**
+     * Minimum length of a chunk, smaller chunks cost more in scheduling than
+     * they gain in parallelism.
+     */
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Parses the stylesheet in chunks.
+     *
+     * @param css     The raw CSS stylesheet.
+     * @param version The CSS version.
+     * @param pool    The pool where the chunks are parsed.
+     * @return the parsed stylesheet, or null if the CSS is malformed and must
+     * be parsed as a whole
+     */
+    public static CascadingStyleSheet parse(String css, ECSSVersion version, ForkJoinPool pool) {
+
+        List<String> chunks;
+
+        try {
+            chunks = split(css, Math.max(MIN_CHUNK_SIZE, css.length() / (pool.getParallelism() * 4)));
+        } catch (IOException e) {
+            // Not thrown when reading from a string.
+            return null;
+        }
+
+        if (chunks == null) {
+            return null;
+        }
+
+        List<ForkJoinTask<CascadingStyleSheet>> tasks = new ArrayList<>(chunks.size());
+
+        for (String chunk : chunks) {
+            tasks.add(pool.submit(() -> CSSReader.readFromString(chunk, version)));
+        }
+
+        CascadingStyleSheet result = new CascadingStyleSheet();
+        boolean failed = false;
+
+        // All the tasks are joined, even after a failure, so that none is left running.
+        for (ForkJoinTask<CascadingStyleSheet> task : tasks) {
+
+            CascadingStyleSheet chunk = task.join();
+
+            if (chunk == null) {
+                failed = true;
+            } else if (!failed) {
+                // The @import and @namespace rules can only be at the beginning
+                // of the stylesheet, so they are all in the first chunks.
+                chunk.getAllImportRules().forEach(result::addImportRule);
+                chunk.getAllNamespaceRules().forEach(result::addNamespaceRule);
+                chunk.getAllRules().forEach(result::addRule);
+            }
+        }
+
+        return failed ? null : result;
+    }
+
+    /**
+     * Groups the top-level statements of the CSS into chunks of at least the
+     * given length.
+     *
+     * @return the chunks, or null if the CSS is not balanced
+     */
+    private static List<String> split(String css, int chunkSize) throws IOException {
+
+        VultureCSSCoreRuleSplitter splitter = new VultureCSSCoreRuleSplitter(css);
+        List<String> chunks = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder(chunkSize + 1024);
+
+        for (String statement = splitter.next(); statement != null; statement = splitter.next()) {
+
+            chunk.append(statement);
+
+            if (chunk.length() >= chunkSize) {
+                chunks.add(chunk.toString());
+                chunk.setLength(0);
+            }
+        }
+
+        if (!splitter.isBalanced()) {
+            return null;
+        }
+
+        if (chunk.length() > 0) {
+            chunks.add(chunk.toString());
+        }
+
+        return chunks;
+    }
+
+}
@@ -0,0 +1,436 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+/**
+ * Inverted index of every class, id, tag name and attribute name used in a
+ * document. It is built once, with a single walk of the DOM, and allows to
+ * reject most of the dead selectors with a few hash lookups, before any jsoup
+ * selection is performed.
+ *
+ * All the tokens are stored lowercased, so that the index never rejects a
+ * selector that jsoup would match.
+ *
+ * @author .Maui
+ */
+public class VultureCSSCoreDocumentIndex {
+
+    private final Map<String, List<Element>> classes = new HashMap<>();
+    private final Map<String, List<Element>> ids = new HashMap<>();
+    private final Map<String, List<Element>> tags = new HashMap<>();
+    private final Map<String, List<Element>> attributes = new HashMap<>();
+    private final List<Element> allElements;
+    private final Set<String> virtualClasses = new HashSet<>();
+
+    /**
+     * @param document
+     */
+    public VultureCSSCoreDocumentIndex(Document document) {
+        this(document, Collections.emptySet());
+    }
+
+    /**
+     * Creates the index with classes that are not in the document but can be
+     * added to any of its elements at runtime, like the ones found in its
+     * scripts by {@link VultureCSSCoreScriptScanner}.
+     *
+     * @param document
+     * @param virtualClasses
+     */
+    public VultureCSSCoreDocumentIndex(Document document, Collection<String> virtualClasses) {
+
+        for (String className : virtualClasses) {
+            this.virtualClasses.add(className.toLowerCase(Locale.ROOT));
+        }
+
+        this.allElements = document.getAllElements();
+
+        for (Element element : this.allElements) {
+
+            add(this.tags, element.normalName(), element);
+
+            for (Attribute attribute : element.attributes()) {
+
+                String key = attribute.getKey().toLowerCase(Locale.ROOT);
+                add(this.attributes, key, element);
+
+                if ("id".equals(key)) {
+                    add(this.ids, attribute.getValue(), element);
+                } else if ("class".equals(key)) {
+                    for (String className : element.classNames()) {
+                        add(this.classes, className, element);
+                    }
+                }
+            }
+        }
+
+    }
+
+    private static void add(Map<String, List<Element>> map, String token, Element element) {
+
+        if (token.isEmpty()) {
+            return;
+        }
+
+        List<Element> elements = map.computeIfAbsent(token.toLowerCase(Locale.ROOT), (k) -> new ArrayList<>(1));
+
+        // An element is listed once, even if a token is repeated in its attributes.
+        if (elements.isEmpty() || elements.get(elements.size() - 1) != element) {
+            elements.add(element);
+        }
+
+    }
+
+    /**
+     * Checks if all the classes, ids, tag names and attribute names required by
+     * the selector are present in the document. Tokens inside parentheses
+     * (functional pseudo-classes) are not considered required.
+     *
+     * @param selector A selector without the pseudo-classes known by
+     * {@link VultureCSSCorePseudoClassStripper}.
+     * @return false if the selector certainly doesn't match any element, true
+     * if it may match (or can't be analyzed).
+     */
+    public boolean mayMatch(String selector) {
+
+        int length = selector.length();
+        int i = 0;
+        boolean compoundStart = true;
+
+        while (i < length) {
+
+            char ch = selector.charAt(i);
+
+            if (ch == '.' || ch == '#') {
+
+                int end = readName(selector, i + 1);
+
+                if (end < 0) {
+                    return true;
+                }
+
+                if (end > i + 1) {
+                    String name = unescape(selector, i + 1, end);
+                    if (name == null) {
+                        return true;
+                    }
+                    if (!(ch == '.' ? hasClass(name) : hasId(name))) {
+                        return false;
+                    }
+                }
+
+                i = end;
+                compoundStart = false;
+
+            } else if (ch == '[') {
+
+                int nameStart = i + 1;
+                while (nameStart < length && Character.isWhitespace(selector.charAt(nameStart))) {
+                    nameStart++;
+                }
+
+                int end = readName(selector, nameStart);
+
+                if (end < 0 || (end < length && selector.charAt(end) == '|')) {
+                    // Escapes and namespaces are left to jsoup.
+                    return true;
+                }
+
+                if (end > nameStart && !hasAttribute(selector.substring(nameStart, end))) {
+                    return false;
+                }
+
+                i = skipUntil(selector, end, ']');
+                compoundStart = false;
+
+            } else if (ch == ':') {
+
+                // A pseudo-class not known by the stripper: skip it, with its arguments.
+                int end = readName(selector, (i + 1 < length && selector.charAt(i + 1) == ':') ? i + 2 : i + 1);
+
+                if (end < 0) {
+                    return true;
+                }
+
+                i = (end < length && selector.charAt(end) == '(') ? skipUntil(selector, end + 1, ')') : end;
+                compoundStart = false;
+
+            } else if (ch == '(') {
+
+                i = skipUntil(selector, i + 1, ')');
+
+            } else if (ch == '|' || ch == ',' || ch == '\\') {
+
+                // Namespaces and selector groups are left to jsoup.
+                return true;
+
+            } else if (ch == '>' || ch == '+' || ch == '~' || Character.isWhitespace(ch)) {
+
+                compoundStart = true;
+                i++;
+
+            } else if (ch == '*') {
+
+                compoundStart = false;
+                i++;
+
+            } else if (compoundStart) {
+
+                int end = readName(selector, i);
+
+                if (end < 0 || end == i) {
+                    return true;
+                }
+
+                if (end < length && selector.charAt(end) == '|') {
+                    return true;
+                }
+
+                if (!hasTag(selector.substring(i, end))) {
+                    return false;
+                }
+
+                i = end;
+                compoundStart = false;
+
+            } else {
+
+                i++;
+
+            }
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Reads a CSS identifier.
+     *
+     * @return the end of the identifier, or -1 if it contains escapes that
+     * can't be resolved here.
+     */
+    private static int readName(String selector, int start) {
+
+        int length = selector.length();
+        int i = start;
+
+        while (i < length) {
+
+            char ch = selector.charAt(i);
+
+            if (ch == '\\') {
+
+                // Only simple escapes, like in .sm\:flex, are supported.
+                if (i + 1 >= length || isHexDigit(selector.charAt(i + 1))) {
+                    return -1;
+                }
+
+                i += 2;
+
+            } else if (Character.isLetterOrDigit(ch) || ch == '-' || ch == '_' || ch >= 0x80) {
+                i++;
+            } else {
+                break;
+            }
+        }
+
+        return i;
+
+    }
+
+    private static String unescape(String selector, int start, int end) {
+
+        if (selector.indexOf('\\', start) < 0 || selector.indexOf('\\', start) >= end) {
+            return selector.substring(start, end);
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+
+        for (int i = start; i < end; i++) {
+            char ch = selector.charAt(i);
+            if (ch == '\\') {
+                i++;
+                ch = selector.charAt(i);
+            }
+            sb.append(ch);
+        }
+
+        return sb.toString();
+
+    }
+
+    private static int skipUntil(String selector, int start, char close) {
+
+        int length = selector.length();
+        int depth = 0;
+        char quote = 0;
+
+        for (int i = start; i < length; i++) {
+
+            char ch = selector.charAt(i);
+
+            if (ch == '\\') {
+                i++;
+            } else if (quote != 0) {
+                if (ch == quote) {
+                    quote = 0;
+                }
+            } else if (ch == '"' || ch == '\'') {
+                quote = ch;
+            } else if (close == ')' && ch == '(') {
+                depth++;
+            } else if (ch == close) {
+                if (depth == 0) {
+                    return i + 1;
+                }
+                depth--;
+            }
+        }
+
+        return length;
+
+    }
+
+    private static boolean isHexDigit(char ch) {
+        return (ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'f') || (ch >= 'A' && ch <= 'F');
+    }
+
+    public boolean hasClass(String className) {
+        String key = className.toLowerCase(Locale.ROOT);
+        return this.classes.containsKey(key) || this.virtualClasses.contains(key);
+    }
+
+    /**
+     * Checks if the class can be added to any element at runtime.
+     *
+     * @param className
+     * @return true if the class is one of the virtual classes of the index
+     */
+    public boolean isVirtualClass(String className) {
+        return !this.virtualClasses.isEmpty() && this.virtualClasses.contains(className.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Checks if the selector requires one of the virtual classes of the index.
+     *
+     * @param selector
+     * @return true if one of its classes is virtual
+     */
+    public boolean requiresVirtualClass(String selector) {
+
+        if (this.virtualClasses.isEmpty()) {
+            return false;
+        }
+
+        for (int i = selector.indexOf('.'); i >= 0; i = selector.indexOf('.', i + 1)) {
+
+            int end = readName(selector, i + 1);
+
+            if (end > i + 1) {
+                String name = unescape(selector, i + 1, end);
+                if (name != null && isVirtualClass(name)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    public boolean hasId(String id) {
+        return this.ids.containsKey(id.toLowerCase(Locale.ROOT));
+    }
+
+    public boolean hasTag(String tagName) {
+        return this.tags.containsKey(tagName.toLowerCase(Locale.ROOT));
+    }
+
+    public boolean hasAttribute(String attributeName) {
+        return this.attributes.containsKey(attributeName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Get the elements having the given class
+     *
+     * @param className
+     * @return the elements, an empty list if none
+     */
+    public List<Element> getElementsByClass(String className) {
+        return this.classes.getOrDefault(className.toLowerCase(Locale.ROOT), Collections.emptyList());
+    }
+
+    /**
+     * Get the elements having the given id
+     *
+     * @param id
+     * @return the elements, an empty list if none
+     */
+    public List<Element> getElementsById(String id) {
+        return this.ids.getOrDefault(id.toLowerCase(Locale.ROOT), Collections.emptyList());
+    }
+
+    /**
+     * Get the elements with the given tag name
+     *
+     * @param tagName
+     * @return the elements, an empty list if none
+     */
+    public List<Element> getElementsByTag(String tagName) {
+        return this.tags.getOrDefault(tagName.toLowerCase(Locale.ROOT), Collections.emptyList());
+    }
+
+    /**
+     * Get the elements having the given attribute
+     *
+     * @param attributeName
+     * @return the elements, an empty list if none
+     */
+    public List<Element> getElementsByAttribute(String attributeName) {
+        return this.attributes.getOrDefault(attributeName.toLowerCase(Locale.ROOT), Collections.emptyList());
+    }
+
+    /**
+     * Get all the elements of the document, in document order
+     *
+     * @return the elements
+     */
+    public List<Element> getAllElements() {
+        return this.allElements;
+    }
+
+}
@@ -24,13 +24,14 @@
 package com.dotmaui.vulturecss.core;
 
 import com.dotmaui.vulturecss.models.VultureCSSOptions;
-import com.dotmaui.vulturecss.models.WhiteListRule;
-import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.css.decl.CSSSelector;
+import com.helger.css.decl.CSSSelectorSimpleMember;
 import com.helger.css.decl.CSSStyleRule;
-import com.helger.css.decl.CSSWritableList;
-import java.util.ArrayList;
-import java.util.List;
+import com.helger.css.decl.ICSSSelectorMember;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
@@ -38,173 +39,105 @@ import org.jsoup.select.Selector;
 
 public class VultureCSSCoreHTMLChecker {
 
-    /**
-     * Pseudo-classes and Pseudo-elements are not considered, they are removed
-     * from the selector.
-     */
-    private final List<String> pseudoClasses = new ArrayList<>();
-    private final List<String> pseudoClassesWithbrackets = new ArrayList<>();
     private final Document htmlDocument;
+    private final VultureCSSCoreDocumentIndex documentIndex;
+    private final VultureCSSCoreSelectorMatcher selectorMatcher;
     private final VultureCSSOptions options;
 
+    /**
+     * Results of the selectors already checked against this document, keyed by
+     * the normalized selector. Framework stylesheets repeat the same selector
+     * many times across @media and @supports blocks, so each distinct selector
+     * is evaluated only once per page.
+     *
+     * The checker can be shared by threads processing different stylesheets of
+     * the same page: the document and its index are only read, and the few
+     * jsoup selections are serialized.
+     */
+    private final Map<String, Boolean> selectorCache = new ConcurrentHashMap<>();
+    private final Map<CSSSelector, Boolean> parsedSelectorCache = new ConcurrentHashMap<>();
+    private final LongAdder selectorCacheHits = new LongAdder();
+    private final LongAdder selectorCacheMisses = new LongAdder();
+
     /**
      * @param html
      * @param options
      */
     public VultureCSSCoreHTMLChecker(String html, VultureCSSOptions options) {
+        this(Jsoup.parse(html), options);
+    }
 
-        this.htmlDocument = Jsoup.parse(html);
-        this.options = options;
+    /**
+     * Creates a checker for an already parsed document. The same checker can
+     * be reused for all the stylesheets of a page, so that the page is parsed
+     * and indexed only once.
+     *
+     * If the scripts are scanned for class names, only the inline scripts are
+     * read here: the linked ones are downloaded by
+     * {@link VultureCSSCore#Process()}, which passes the classes to
+     * {@link #VultureCSSCoreHTMLChecker(Document, Collection, VultureCSSOptions)}.
+     *
+     * @param htmlDocument
+     * @param options
+     */
+    public VultureCSSCoreHTMLChecker(Document htmlDocument, VultureCSSOptions options) {
+        this(htmlDocument, options.isScanScriptClasses() ? VultureCSSCoreScriptScanner.getClassNames(htmlDocument, null) : null, options);
+    }
 
-        /**
-         * Jsoup raises an exception when pseudo-classes and pseudo-elements are
-         * present in the selector. To avoid this I exclude pseudo-classes and
-         * pseudo-elements in the selection through Jsoup, what is important to
-         * verify is the selector.
-         *
-         * @link https://developer.mozilla.org/fr/docs/Web/CSS/Pseudo-classes
-         * @link https://developer.mozilla.org/en-US/docs/Web/CSS/Pseudo-elements
-         */
-        pseudoClasses.add("::visited");
-        pseudoClasses.add("::valid");
-        pseudoClasses.add("::target");
-        pseudoClasses.add("::spelling-error");
-        pseudoClasses.add("::selection");
-        pseudoClasses.add("::scope");
-        pseudoClasses.add("::root");
-        pseudoClasses.add("::right");
-        pseudoClasses.add("::required");
-        pseudoClasses.add("::read-write");
-        pseudoClasses.add("::read-only");
-        pseudoClasses.add("::placeholder-shown");
-        pseudoClasses.add("::placeholder");
-        pseudoClasses.add("::out-of-range");
-        pseudoClasses.add("::optional");
-        pseudoClasses.add("::only-of-type");
-        pseudoClasses.add("::only-child");
-        pseudoClasses.add("::marker");
-        pseudoClasses.add("::link");
-        pseudoClasses.add("::left");
-        pseudoClasses.add("::last-of-type");
-        pseudoClasses.add("::last-child");
-        pseudoClasses.add("::invalid");
-        pseudoClasses.add("::indeterminate");
-        pseudoClasses.add("::in-range");
-        pseudoClasses.add("::hover");
-        pseudoClasses.add("::grammar-error");
-        pseudoClasses.add("::fullscreen");
-        pseudoClasses.add("::focus");
-        pseudoClasses.add("::first-of-type");
-        pseudoClasses.add("::first-line");
-        pseudoClasses.add("::first-letter");
-        pseudoClasses.add("::first-child");
-        pseudoClasses.add("::first");
-        pseudoClasses.add("::enabled");
-        pseudoClasses.add("::empty");
-        pseudoClasses.add("::disabled");
-        pseudoClasses.add("::default");
-        pseudoClasses.add("::cue");
-        pseudoClasses.add("::checked");
-        pseudoClasses.add("::before");
-        pseudoClasses.add("::backdrop");
-        pseudoClasses.add("::any");
-        pseudoClasses.add("::after");
-        pseudoClasses.add("::active");
-        pseudoClasses.add("::-webkit-slider-thumb");
-        pseudoClasses.add("::-webkit-slider-runnable-track");
-        pseudoClasses.add("::-webkit-progress-value");
-        pseudoClasses.add("::-webkit-progress-bar");
-        pseudoClasses.add("::-ms-value");
-        pseudoClasses.add("::-ms-track");
-        pseudoClasses.add("::-ms-tooltip");
-        pseudoClasses.add("::-ms-ticks-before");
-        pseudoClasses.add("::-ms-ticks-after");
-        pseudoClasses.add("::-ms-thumb");
-        pseudoClasses.add("::-ms-reveal");
-        pseudoClasses.add("::-ms-fill-upper");
-        pseudoClasses.add("::-ms-fill-lower");
-        pseudoClasses.add("::-ms-fill");
-        pseudoClasses.add("::-ms-expand");
-        pseudoClasses.add("::-ms-clear");
-        pseudoClasses.add("::-ms-check");
-        pseudoClasses.add("::-ms-browse");
-        pseudoClasses.add("::-moz-range-track");
-        pseudoClasses.add("::-moz-range-thumb");
-        pseudoClasses.add("::-moz-range-progress");
-        pseudoClasses.add("::-moz-progress-bar");
-        pseudoClasses.add(":visited");
-        pseudoClasses.add(":valid");
-        pseudoClasses.add(":target");
-        pseudoClasses.add(":scope");
-        pseudoClasses.add(":root");
-        pseudoClasses.add(":right");
-        pseudoClasses.add(":required");
-        pseudoClasses.add(":read-write");
-        pseudoClasses.add(":read-only");
-        pseudoClasses.add(":placeholder-shown");
-        pseudoClasses.add(":placeholder");
-        pseudoClasses.add(":out-of-range");
-        pseudoClasses.add(":optional");
-        pseudoClasses.add(":only-of-type");
-        pseudoClasses.add(":only-child");
-        pseudoClasses.add(":link");
-        pseudoClasses.add(":left");
-        pseudoClasses.add(":last-of-type");
-        pseudoClasses.add(":last-child");
-        pseudoClasses.add(":invalid");
-        pseudoClasses.add(":indeterminate");
-        pseudoClasses.add(":in-range");
-        pseudoClasses.add(":hover");
-        pseudoClasses.add(":fullscreen");
-        pseudoClasses.add(":focus-within");
-        pseudoClasses.add(":focus-visible");
-        pseudoClasses.add(":focus");
-        pseudoClasses.add(":first-of-type");
-        pseudoClasses.add(":first-line");
-        pseudoClasses.add(":first-letter");
-        pseudoClasses.add(":first-child");
-        pseudoClasses.add(":first");
-        pseudoClasses.add(":enabled");
-        pseudoClasses.add(":empty");
-        pseudoClasses.add(":disabled");
-        pseudoClasses.add(":defined");
-        pseudoClasses.add(":default");
-        pseudoClasses.add(":checked");
-        pseudoClasses.add(":blank");
-        pseudoClasses.add(":before");
-        pseudoClasses.add(":any-link");
-        pseudoClasses.add(":any");
-        pseudoClasses.add(":after");
-        pseudoClasses.add(":active");
-
-        // Extra.
-        pseudoClasses.add(":-ms-input-placeholder");
-
-        pseudoClassesWithbrackets.add(":where()");
-        pseudoClassesWithbrackets.add(":nth-col()");
-        pseudoClassesWithbrackets.add(":nth-last-col()");
-        pseudoClassesWithbrackets.add(":dir()");
-        pseudoClassesWithbrackets.add(":lang()");
-        pseudoClassesWithbrackets.add(":nth-of-type()");
-        pseudoClassesWithbrackets.add(":nth-last-of-type()");
-        pseudoClassesWithbrackets.add(":nth-last-child()");
-        pseudoClassesWithbrackets.add(":nth-child()");
-        pseudoClassesWithbrackets.add(":not()");
-        pseudoClassesWithbrackets.add("::where()");
-        pseudoClassesWithbrackets.add("::nth-col()");
-        pseudoClassesWithbrackets.add(":nth-last-col()");
-        pseudoClassesWithbrackets.add("::dir()");
-        pseudoClassesWithbrackets.add("::lang()");
-        pseudoClassesWithbrackets.add("::nth-of-type()");
-        pseudoClassesWithbrackets.add("::nth-last-of-type()");
-        pseudoClassesWithbrackets.add("::nth-last-child()");
-        pseudoClassesWithbrackets.add("::nth-child()");
-        pseudoClassesWithbrackets.add("::not()");
+    /**
+     * Creates a checker for an already parsed document, with the classes the
+     * scripts of the page can add at runtime. Those classes are kept as if
+     * they were on any element.
+     *
+     * @param htmlDocument
+     * @param scriptClassNames The classes found by
+     * {@link VultureCSSCoreScriptScanner}, or null.
+     * @param options
+     */
+    public VultureCSSCoreHTMLChecker(Document htmlDocument, Collection<String> scriptClassNames, VultureCSSOptions options) {
+
+        this.htmlDocument = htmlDocument;
+
+        if (scriptClassNames != null && !scriptClassNames.isEmpty()) {
+            this.documentIndex = new VultureCSSCoreDocumentIndex(this.htmlDocument, scriptClassNames);
+        } else {
+            this.documentIndex = new VultureCSSCoreDocumentIndex(this.htmlDocument);
+        }
+
+        this.selectorMatcher = new VultureCSSCoreSelectorMatcher(this.documentIndex);
+        this.options = options;
 
     }
 
+    /**
+     * Checks if the selector matches at least one element of the document.
+     * The result is memoized, so repeated selectors don't hit the document
+     * again.
+     *
+     * @param selector
+     * @return true if the selector is used (or can't be verified)
+     */
     public boolean isSelectorUsed(String selector) {
 
+        String key = normalizeSelector(selector);
+        Boolean cached = this.selectorCache.get(key);
+
+        if (cached != null) {
+            this.selectorCacheHits.increment();
+            return cached;
+        }
+
+        this.selectorCacheMisses.increment();
+
+        boolean used = checkSelector(selector);
+        this.selectorCache.put(key, used);
+
+        return used;
+
+    }
+
+    private boolean checkSelector(String selector) {
+
         // Ownership classes, like :-moz go wrong. You can remove them by setting removeOwnershipClasses to true.    
         if (this.removeVendorPseudoClasses == true
                 && (selector.contains("::-moz")
@@ -229,19 +162,19 @@ public class VultureCSSCoreHTMLChecker {
             newSelector = newSelector.substring(0, newSelector.length() - 2);
         }
 
-        // Whitelist.
-        if (this.options.getWhiteListRules() != null) {
-
-            for (WhiteListRule whiteListRule : this.options.getWhiteListRules()) {
-
-                if (whiteListRule.getType() == WhiteListRule.CONTAINING && selector.toLowerCase().contains(whiteListRule.getSelector().toLowerCase())) {
-                    return true;
-                } else if (whiteListRule.getType() == WhiteListRule.EQUALS && whiteListRule.getSelector().toLowerCase().equals(selector.toLowerCase())) {
-                    return true;
-                }
+        if (isWhiteListed(selector)) {
+            return true;
+        }
 
-            }
+        // Most selectors are dead: if a class, id, tag or attribute required by
+        // the selector is missing from the document, jsoup is not even queried.
+        if (!this.documentIndex.mayMatch(newSelector)) {
+            return false;
+        }
 
+        // jsoup doesn't know the classes that the scripts can add.
+        if (this.documentIndex.requiresVirtualClass(newSelector)) {
+            return true;
         }
 
         Elements elm;
@@ -249,7 +182,10 @@ public class VultureCSSCoreHTMLChecker {
         // If the search raises an exception, the rule is considered valid 
         // and included in the final result.
         try {
-            elm = this.htmlDocument.select(newSelector);
+            // jsoup is not thread-safe, even for reading.
+            synchronized (this.htmlDocument) {
+                elm = this.htmlDocument.select(newSelector);
+            }
         } catch (Selector.SelectorParseException e) {
             //System.out.println(selector);
             //System.out.println(newSelector);
@@ -262,79 +198,152 @@ public class VultureCSSCoreHTMLChecker {
     }
 
     /**
+     * Checks if the selector, as parsed by ph-css, matches at least one element
+     * of the document. The selector is matched natively, without converting it
+     * to a string; only the selectors the native matcher doesn't support are
+     * checked through jsoup. The result is memoized.
      *
-     * @param rule
-     * @return
+     * @param selector
+     * @return true if the selector is used (or can't be verified)
      */
-    public CSSStyleRule multiSelectorControl(CSSStyleRule rule) {
+    public boolean isSelectorUsed(CSSSelector selector) {
 
-        ICommonsList<CSSSelector> allSelectors = rule.getAllSelectors();
-        ICommonsList<CSSSelector> finalSelectors = new CSSWritableList<>();
+        Boolean cached = this.parsedSelectorCache.get(selector);
 
-        CSSStyleRule finalRule = new CSSStyleRule();
+        if (cached != null) {
+            this.selectorCacheHits.increment();
+            return cached;
+        }
 
-        for (CSSSelector selector : allSelectors) {
+        this.selectorCacheMisses.increment();
 
-            String selectorAsString = selector.getAsCSSString().trim();
+        boolean used = checkSelector(selector);
+        this.parsedSelectorCache.put(selector, used);
 
-            if (!"".equals(selectorAsString)) {
+        return used;
 
-                if (isSelectorUsed(selectorAsString)) {
-                    finalSelectors.add(selector);
-                }
+    }
 
-            }
+    private boolean checkSelector(CSSSelector selector) {
 
+        if (this.removeVendorPseudoClasses == true && hasVendorPseudoElement(selector)) {
+            return false;
         }
 
-        if (finalSelectors.size() > 0) {
+        // The string is only needed by the whitelist.
+        if (!this.options.getWhiteListMatcher().isEmpty()
+                && isWhiteListed(selector.getAsCSSString())) {
+            return true;
+        }
 
-            finalSelectors.forEach((selector) -> {
-                finalRule.addSelector(selector);
-            });
+        Boolean used = this.selectorMatcher.matches(selector);
 
-            rule.getAllDeclarations().forEach((declaration) -> {
-                finalRule.addDeclaration(declaration);
-            });
+        if (used == null) {
+            return isSelectorUsed(selector.getAsCSSString());
+        }
 
+        return used;
+
+    }
+
+    private static boolean hasVendorPseudoElement(CSSSelector selector) {
+
+        for (ICSSSelectorMember member : selector.getAllMembers()) {
+
+            if (member instanceof CSSSelectorSimpleMember simpleMember && simpleMember.isPseudo()) {
+
+                String value = simpleMember.getValue();
+
+                if (value.startsWith("::-moz") || value.startsWith("::-webkit") || value.startsWith("::-ms-")) {
+                    return true;
+                }
+            }
         }
 
-        return finalRule;
+        return false;
 
     }
 
+    private boolean isWhiteListed(String selector) {
+        return this.options.getWhiteListMatcher().matches(selector);
+    }
+
     /**
      *
-     * @internal Examples of output of this function
-     *
-     * :root -> :root a:after -> a a[href^="javascript:"]:after ->
-     * a[href^="javascript:"]
+     * @param rule
+     * @return
+     */
+    public CSSStyleRule multiSelectorControl(CSSStyleRule rule) {
+        return VultureCSSCoreParser.getUsedSelectorsFromStyleRule(rule, this::isSelectorUsed);
+    }
+
+    /**
+     * Trims the selector and collapses runs of CSS whitespace outside of
+     * quoted strings, so that equivalent selectors share the same cache entry.
      *
      * @param selector
-     * @return String
+     * @return the normalized selector, the same instance if already normalized
      */
-    private String removePseudoClasses(String selector) {
+    static String normalizeSelector(String selector) {
 
-        if ("".equals(selector) || selector.startsWith(":") || !selector.contains(":")) {
-            return selector;
-        }
+        String trimmed = selector.trim();
+        StringBuilder sb = null;
+        char quote = 0;
 
-        // Pseudo standard classes.
-        for (String pseudo : this.pseudoClasses) {
-            selector = selector.replace(pseudo, "");
-        }
+        for (int i = 0; i < trimmed.length(); i++) {
 
-        // It is possible that pseudo classes are also used inside the not(),
-        // so the result would be :not() which would obviously return error
-        // Because the not can't be empty.
-        for (String pseudo : this.pseudoClassesWithbrackets) {
-            selector = selector.replace(pseudo, "");
+            char ch = trimmed.charAt(i);
+
+            if (quote != 0) {
+                if (ch == quote) {
+                    quote = 0;
+                }
+            } else if (ch == '"' || ch == '\'') {
+                quote = ch;
+            } else if (isCSSWhitespace(ch)
+                    && (ch != ' ' || (i + 1 < trimmed.length() && isCSSWhitespace(trimmed.charAt(i + 1))))) {
+
+                // Copy everything read so far and skip the whole whitespace run.
+                if (sb == null) {
+                    sb = new StringBuilder(trimmed.length()).append(trimmed, 0, i);
+                }
+
+                while (i + 1 < trimmed.length() && isCSSWhitespace(trimmed.charAt(i + 1))) {
+                    i++;
+                }
+
+                sb.append(' ');
+                continue;
+            }
+
+            if (sb != null) {
+                sb.append(ch);
+            }
         }
 
-        return selector;
+        return (sb == null) ? trimmed : sb.toString();
 
     }
 
+    /**
+     * Only these characters separate the parts of a selector, the other
+     * Unicode spaces can be part of a name.
+     */
+    private static boolean isCSSWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r' || ch == '\f';
+    }
+
+    /**
+     * Pseudo-classes and Pseudo-elements are not considered, they are removed
+     * from the selector.
+     *
+     * @param selector
+     * @return String
+     */
+    private String removePseudoClasses(String selector) {
+        return VultureCSSCorePseudoClassStripper.strip(selector);
+    }
+
     private boolean removeVendorPseudoClasses;
 
     /**
@@ -352,7 +361,65 @@ public class VultureCSSCoreHTMLChecker {
      * @param removeVendorPseudoClasses new value of removeVendorPseudoClasses
      */
     public void setRemoveVendorPseudoClasses(boolean removeVendorPseudoClasses) {
+        if (this.removeVendorPseudoClasses != removeVendorPseudoClasses) {
+            this.selectorCache.clear();
+            this.parsedSelectorCache.clear();
+        }
         this.removeVendorPseudoClasses = removeVendorPseudoClasses;
     }
 
+    /**
+     * Get the parsed HTML document
+     *
+     * @return the document
+     */
+    public Document getHtmlDocument() {
+        return htmlDocument;
+    }
+
+    /**
+     * Get the index of the classes, ids, tags and attributes of the document
+     *
+     * @return the document index
+     */
+    public VultureCSSCoreDocumentIndex getDocumentIndex() {
+        return documentIndex;
+    }
+
+    /**
+     * Get the number of selector checks answered by the cache
+     *
+     * @return the number of cache hits
+     */
+    public long getSelectorCacheHits() {
+        return selectorCacheHits.sum();
+    }
+
+    /**
+     * Get the number of selector checks evaluated against the document
+     *
+     * @return the number of cache misses
+     */
+    public long getSelectorCacheMisses() {
+        return selectorCacheMisses.sum();
+    }
+
+    /**
+     * Get the number of distinct selectors in the cache
+     *
+     * @return the size of the cache
+     */
+    public int getSelectorCacheSize() {
+        return selectorCache.size() + parsedSelectorCache.size();
+    }
+
+    /**
+     * Forgets the results of the selectors checked so far, to free the memory
+     * of the cache.
+     */
+    public void clearSelectorCache() {
+        this.selectorCache.clear();
+        this.parsedSelectorCache.clear();
+    }
+
 }
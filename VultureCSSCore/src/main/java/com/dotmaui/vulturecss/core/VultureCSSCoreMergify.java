@@ -1,155 +1,357 @@
-/*
- * The MIT License
- *
- * Copyright 2025 .Maui | dotmaui.com.
- *
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-package com.dotmaui.vulturecss.core;
-
-import com.helger.commons.collection.impl.ICommonsList;
-import com.helger.css.decl.CSSDeclaration;
-import com.helger.css.decl.CSSImportRule;
-import com.helger.css.decl.CSSMediaRule;
-import com.helger.css.decl.CSSSelector;
-import com.helger.css.decl.CSSStyleRule;
-import com.helger.css.decl.CascadingStyleSheet;
-import com.helger.css.decl.ICSSTopLevelRule;
-import java.util.ArrayList;
-import java.util.List;
-
-public class VultureCSSCoreMergify {
-
-    /**
-     * Merges and optimizes CSS rules from a list of ICSSTopLevelRule.
-     *
-     * @param rules The list of CSS top-level rules to merge.
-     * @return A CascadingStyleSheet containing the merged rules.
-     */
-    public static CascadingStyleSheet MergeRules(ICommonsList<ICSSTopLevelRule> rules) {
-
-        CascadingStyleSheet newStyleSheetWithAllDeclarations = new CascadingStyleSheet();
-        int importRulesIndex = 0;
-        List<String> alreadyInserted = new ArrayList<>();
-
-        // Iterate over each rule to combine CSS rules intelligently
-        for (ICSSTopLevelRule rule : rules) {
-
-            if (rule instanceof CSSMediaRule cssMediaRule) {
-                String mediaQueryDef = cssMediaRule.getAllMediaQueries().get(0).getAsCSSString();
-
-                if (!alreadyInserted.contains(mediaQueryDef)) {
-                    int endColumn = cssMediaRule.getSourceLocation().getLastTokenEndColumnNumber();
-
-                    // Merge media queries with the same definition
-                    for (ICSSTopLevelRule ruleCompare : rules) {
-                        if (ruleCompare instanceof CSSMediaRule cssMediaRuleCompare) {
-                            String mediaQueryCompareDef = cssMediaRuleCompare.getAllMediaQueries().get(0).getAsCSSString();
-                            int endColumnCompare = cssMediaRuleCompare.getSourceLocation().getLastTokenEndColumnNumber();
-
-                            if (mediaQueryDef.equals(mediaQueryCompareDef) && endColumnCompare > endColumn) {
-                                alreadyInserted.add(mediaQueryDef);
-
-                                // Add all style rules from the comparison rule
-                                for (CSSStyleRule styleRule : cssMediaRuleCompare.getAllStyleRules()) {
-                                    cssMediaRule.addRule(styleRule);
-                                }
-                            }
-                        }
-                    }
-
-                    // Add the merged media rule to the final stylesheet
-                    newStyleSheetWithAllDeclarations.addRule(cssMediaRule);
-                }
-
-            } else if (rule instanceof CSSStyleRule cssStyleRule) {
-
-                // Combine CSSStyleRules with the same selector
-                StringBuilder allSelector = new StringBuilder();
-                for (CSSSelector selector : cssStyleRule.getAllSelectors()) {
-                    allSelector.append(selector.getAsCSSString()).append(",");
-                }
-
-                String selectorString = allSelector.substring(0, allSelector.length() - 1);
-
-                if (!alreadyInserted.contains(selectorString) && cssStyleRule.getDeclarationAtIndex(0) != null) {
-                    int endColumn = cssStyleRule.getDeclarationAtIndex(0).getSourceLocation().getLastTokenEndColumnNumber();
-
-                    // Compare and merge style rules with identical selectors
-                    for (ICSSTopLevelRule ruleCompare : rules) {
-                        if (ruleCompare instanceof CSSStyleRule cssStyleRuleCompare) {
-                            StringBuilder allSelectorCompare = new StringBuilder();
-                            for (CSSSelector selector : cssStyleRuleCompare.getAllSelectors()) {
-                                allSelectorCompare.append(selector.getAsCSSString()).append(",");
-                            }
-
-                            String selectorCompareString = allSelectorCompare.substring(0, allSelectorCompare.length() - 1);
-
-                            if (cssStyleRuleCompare.getDeclarationAtIndex(0) != null) {
-                                int endColumnCompare = cssStyleRuleCompare.getDeclarationAtIndex(0).getSourceLocation().getLastTokenEndColumnNumber();
-
-                                // If the selectors match and the current rule ends later, merge the declarations
-                                if (selectorString.equals(selectorCompareString) && endColumnCompare > endColumn) {
-                                    alreadyInserted.add(selectorString);
-
-                                    // Add all declarations from the comparison rule
-                                    for (CSSDeclaration declaration : cssStyleRuleCompare.getAllDeclarations()) {
-                                        cssStyleRule.addDeclaration(declaration);
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    newStyleSheetWithAllDeclarations.addRule(cssStyleRule);
-                }
-
-            } else if (rule instanceof CSSImportRule cSSImportRule) {
-                // Handle import rules separately
-                newStyleSheetWithAllDeclarations.addImportRule(importRulesIndex, cSSImportRule);
-                importRulesIndex++;
-
-            } else if (rule != null) {
-                // Handle other types of CSS rules (e.g., viewport, supports)
-                newStyleSheetWithAllDeclarations.addRule(rule);
-            } else {
-                throw new UnsupportedOperationException();
-            }
-        }
-
-        // Optimize the media rules by merging nested style rules
-        ICommonsList<ICSSTopLevelRule> allRules = newStyleSheetWithAllDeclarations.getAllRules();
-        for (ICSSTopLevelRule rule : allRules) {
-            if (rule instanceof CSSMediaRule cSSMediaRule) {
-                CascadingStyleSheet tempStyleSheet = new CascadingStyleSheet();
-                for (CSSStyleRule optimized : cSSMediaRule.getAllStyleRules()) {
-                    tempStyleSheet.addRule(optimized);
-                }
-                cSSMediaRule.removeAllRules();
-                CascadingStyleSheet mergedTempStyleSheet = MergeRules(tempStyleSheet.getAllRules());
-                for (CSSStyleRule optimized : mergedTempStyleSheet.getAllStyleRules()) {
-                    cSSMediaRule.addRule(optimized);
-                }
-            }
-        }
-
-        return newStyleSheetWithAllDeclarations;
-    }
-
-}
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.css.decl.AbstractHasTopLevelRules;
+import com.helger.css.decl.CSSDeclaration;
+import com.helger.css.decl.CSSImportRule;
+import com.helger.css.decl.CSSMediaQuery;
+import com.helger.css.decl.CSSMediaRule;
+import com.helger.css.decl.CSSSelector;
+import com.helger.css.decl.CSSStyleRule;
+import com.helger.css.decl.CSSUnknownRule;
+import com.helger.css.decl.CascadingStyleSheet;
+import com.helger.css.decl.ICSSTopLevelRule;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public class VultureCSSCoreMergify {
+
+    /**
+     * The property families whose names don't start with the name of the
+     * shorthand or of the physical property they overlap with.
+     */
+    private static final Map<String, String> PROPERTY_FAMILY_ALIASES = Map.ofEntries(
+            Map.entry("line", "font"),
+            Map.entry("top", "inset"),
+            Map.entry("right", "inset"),
+            Map.entry("bottom", "inset"),
+            Map.entry("left", "inset"),
+            Map.entry("width", "size"),
+            Map.entry("height", "size"),
+            Map.entry("min", "size"),
+            Map.entry("max", "size"),
+            Map.entry("inline", "size"),
+            Map.entry("block", "size"),
+            Map.entry("place", "align"),
+            Map.entry("justify", "align"),
+            Map.entry("gap", "column"),
+            Map.entry("row", "column"),
+            Map.entry("columns", "column"),
+            Map.entry("grid", "column"),
+            Map.entry("white", "text"),
+            Map.entry("word", "overflow"),
+            Map.entry("page", "break"));
+
+    /**
+     * The property that resets all the others.
+     */
+    private static final String ALL_PROPERTIES = "all";
+
+    /**
+     * Merges and optimizes CSS rules from a list of ICSSTopLevelRule.
+     *
+     * The style rules with the same selectors, and the media rules with the
+     * same media queries, are merged into the first of them, unless a rule in
+     * between declares a property they declare too: moving the declarations
+     * above that rule would change which one wins, so a new group is started
+     * instead. The shorthands and the logical properties are compared with
+     * the properties they set. The declarations and the nested rules are kept
+     * in the order of the original rules, and the rules of the list are not
+     * modified.
+     *
+     * @param rules The list of CSS top-level rules to merge.
+     * @return A CascadingStyleSheet containing the merged rules.
+     */
+    public static CascadingStyleSheet MergeRules(ICommonsList<ICSSTopLevelRule> rules) {
+
+        CascadingStyleSheet newStyleSheetWithAllDeclarations = new CascadingStyleSheet();
+        int importRulesIndex = 0;
+
+        // Each key is computed once, the last group with a key collects the following rules.
+        Map<String, Integer> styleRulesBySelectors = new HashMap<>();
+        Map<String, Integer> mediaRulesByQueries = new HashMap<>();
+        // By identity: two groups with the same queries are equal while they are empty.
+        Map<CSSMediaRule, ICommonsList<ICSSTopLevelRule>> mediaRulesContent = new IdentityHashMap<>();
+        Cascade cascade = new Cascade();
+
+        // Iterate over each rule to combine CSS rules intelligently
+        for (ICSSTopLevelRule rule : rules) {
+
+            if (rule instanceof CSSMediaRule cssMediaRule) {
+
+                String mediaQueryDef = getMediaQueriesKey(cssMediaRule);
+                Set<String> families = new HashSet<>();
+                collectPropertyFamilies(cssMediaRule, families);
+
+                Integer position = mediaRulesByQueries.get(mediaQueryDef);
+
+                if (position == null || !cascade.canMoveTo(families, position)) {
+
+                    CSSMediaRule mergedMediaRule = new CSSMediaRule();
+                    mergedMediaRule.setSourceLocation(cssMediaRule.getSourceLocation());
+
+                    for (CSSMediaQuery mediaQuery : cssMediaRule.getAllMediaQueries()) {
+                        mergedMediaRule.addMediaQuery(mediaQuery);
+                    }
+
+                    position = newStyleSheetWithAllDeclarations.getRuleCount();
+                    mediaRulesByQueries.put(mediaQueryDef, position);
+                    mediaRulesContent.put(mergedMediaRule, new CommonsArrayList<>());
+
+                    // Add the merged media rule to the final stylesheet
+                    newStyleSheetWithAllDeclarations.addRule(mergedMediaRule);
+                }
+
+                CSSMediaRule mergedMediaRule = (CSSMediaRule) newStyleSheetWithAllDeclarations.getRuleAtIndex(position);
+                mediaRulesContent.get(mergedMediaRule).addAll(cssMediaRule.getAllRules());
+                cascade.declare(families, position);
+
+            } else if (rule instanceof CSSStyleRule cssStyleRule) {
+
+                // Rules without declarations are dropped.
+                if (!cssStyleRule.hasDeclarations()) {
+                    continue;
+                }
+
+                // Combine CSSStyleRules with the same selector
+                String selectorString = getSelectorsKey(cssStyleRule);
+                Set<String> families = new HashSet<>();
+                collectPropertyFamilies(cssStyleRule, families);
+
+                Integer position = styleRulesBySelectors.get(selectorString);
+
+                if (position == null || !cascade.canMoveTo(families, position)) {
+
+                    CSSStyleRule mergedStyleRule = new CSSStyleRule();
+                    mergedStyleRule.setSourceLocation(cssStyleRule.getSourceLocation());
+
+                    for (CSSSelector selector : cssStyleRule.getAllSelectors()) {
+                        mergedStyleRule.addSelector(selector);
+                    }
+
+                    position = newStyleSheetWithAllDeclarations.getRuleCount();
+                    styleRulesBySelectors.put(selectorString, position);
+                    newStyleSheetWithAllDeclarations.addRule(mergedStyleRule);
+                }
+
+                CSSStyleRule mergedStyleRule = (CSSStyleRule) newStyleSheetWithAllDeclarations.getRuleAtIndex(position);
+
+                for (CSSDeclaration declaration : cssStyleRule.getAllDeclarations()) {
+                    mergedStyleRule.addDeclaration(declaration);
+                }
+
+                cascade.declare(families, position);
+
+            } else if (rule instanceof CSSImportRule cSSImportRule) {
+                // Handle import rules separately
+                newStyleSheetWithAllDeclarations.addImportRule(importRulesIndex, cSSImportRule);
+                importRulesIndex++;
+
+            } else if (rule != null) {
+
+                int position = newStyleSheetWithAllDeclarations.getRuleCount();
+
+                // Nothing is moved across the rules that can't be read.
+                if (rule instanceof CSSUnknownRule) {
+                    cascade.declare(Set.of(ALL_PROPERTIES), position);
+                } else if (rule instanceof AbstractHasTopLevelRules container) {
+                    Set<String> families = new HashSet<>();
+                    collectPropertyFamilies(container, families);
+                    cascade.declare(families, position);
+                }
+
+                // Handle other types of CSS rules (e.g., viewport, supports)
+                newStyleSheetWithAllDeclarations.addRule(rule);
+            } else {
+                throw new UnsupportedOperationException();
+            }
+        }
+
+        // Optimize the media rules by merging nested style rules
+        for (Map.Entry<CSSMediaRule, ICommonsList<ICSSTopLevelRule>> entry : mediaRulesContent.entrySet()) {
+            for (ICSSTopLevelRule optimized : MergeRules(entry.getValue()).getAllRules()) {
+                entry.getKey().addRule(optimized);
+            }
+        }
+
+        return newStyleSheetWithAllDeclarations;
+    }
+
+    /**
+     * Returns the family of a property: the properties that can set the same
+     * value, like a shorthand and its longhands or a logical property and the
+     * physical one, share a family. Unrelated properties can share one too,
+     * which only prevents a merge.
+     *
+     * @param property
+     * @return the family, the name of the property for a custom property
+     */
+    static String getPropertyFamily(String property) {
+
+        String name = property.toLowerCase(Locale.ROOT);
+
+        if (name.startsWith("--")) {
+            return name;
+        }
+
+        // -webkit-transition is a transition.
+        if (name.startsWith("-")) {
+            int vendorEnd = name.indexOf('-', 1);
+            name = (vendorEnd < 0) ? name : name.substring(vendorEnd + 1);
+        }
+
+        int dash = name.indexOf('-');
+        String root = (dash < 0) ? name : name.substring(0, dash);
+
+        return PROPERTY_FAMILY_ALIASES.getOrDefault(root, root);
+    }
+
+    private static void collectPropertyFamilies(CSSStyleRule rule, Set<String> families) {
+
+        for (CSSDeclaration declaration : rule.getAllDeclarations()) {
+            families.add(getPropertyFamily(declaration.getProperty()));
+        }
+
+    }
+
+    private static void collectPropertyFamilies(AbstractHasTopLevelRules container, Set<String> families) {
+
+        for (ICSSTopLevelRule rule : container.getAllRules()) {
+
+            if (rule instanceof CSSStyleRule styleRule) {
+                collectPropertyFamilies(styleRule, families);
+            } else if (rule instanceof AbstractHasTopLevelRules nested) {
+                collectPropertyFamilies(nested, families);
+            } else if (rule instanceof CSSUnknownRule) {
+                families.add(ALL_PROPERTIES);
+            }
+        }
+
+    }
+
+    /**
+     * The position, in the merged stylesheet, of the last rule declaring each
+     * property family, to tell if declarations can be moved up to an earlier
+     * rule without passing over one that sets the same properties.
+     */
+    private static final class Cascade {
+
+        private final Map<String, Integer> lastPositions = new HashMap<>();
+        private int lastAllPosition = -1;
+        private int lastAnyPosition = -1;
+
+        boolean canMoveTo(Set<String> families, int position) {
+
+            if (this.lastAllPosition > position) {
+                return false;
+            }
+
+            if (families.contains(ALL_PROPERTIES)) {
+                return this.lastAnyPosition <= position;
+            }
+
+            for (String family : families) {
+                if (this.lastPositions.getOrDefault(family, -1) > position) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        void declare(Set<String> families, int position) {
+
+            if (families.isEmpty()) {
+                return;
+            }
+
+            for (String family : families) {
+                this.lastPositions.merge(family, position, Math::max);
+            }
+
+            this.lastAnyPosition = Math.max(this.lastAnyPosition, position);
+
+            if (families.contains(ALL_PROPERTIES)) {
+                this.lastAllPosition = Math.max(this.lastAllPosition, position);
+            }
+        }
+
+    }
+
+    /**
+     * Returns the selectors of a style rule as a single string, used to find
+     * the rules with the same selectors.
+     *
+     * @param rule
+     * @return the selectors separated by commas
+     */
+    static String getSelectorsKey(CSSStyleRule rule) {
+
+        StringBuilder allSelector = new StringBuilder();
+
+        for (CSSSelector selector : rule.getAllSelectors()) {
+
+            if (!allSelector.isEmpty()) {
+                allSelector.append(',');
+            }
+
+            allSelector.append(selector.getAsCSSString());
+        }
+
+        return allSelector.toString();
+
+    }
+
+    /**
+     * Returns all the media queries of a media rule as a single string, used
+     * to find the media rules with the same queries.
+     *
+     * @param rule
+     * @return the media queries separated by commas
+     */
+    static String getMediaQueriesKey(CSSMediaRule rule) {
+
+        StringBuilder allQueries = new StringBuilder();
+
+        for (CSSMediaQuery mediaQuery : rule.getAllMediaQueries()) {
+
+            if (!allQueries.isEmpty()) {
+                allQueries.append(',');
+            }
+
+            allQueries.append(mediaQuery.getAsCSSString());
+        }
+
+        return allQueries.toString();
+
+    }
+
+}
@@ -46,6 +46,7 @@ import java.net.URL;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 public class VultureCSSCoreParser {
 
@@ -81,16 +82,27 @@ public class VultureCSSCoreParser {
          * @return The rule if used, otherwise null.
          */
         public static CSSStyleRule checkIfRuleIsUsed(CSSStyleRule rule, VultureCSSCoreHTMLChecker htmlChecker) {
+            return checkIfRuleIsUsed(rule, htmlChecker::isSelectorUsed);
+        }
+
+        /**
+         * Checks if the given CSSStyleRule is used, based on the selectors.
+         *
+         * @param rule The CSS rule to check.
+         * @param isSelectorUsed The function that tells if a selector is used.
+         * @return The rule if used, otherwise null.
+         */
+        public static CSSStyleRule checkIfRuleIsUsed(CSSStyleRule rule, Predicate<CSSSelector> isSelectorUsed) {
             // Get all selectors from the rule
             ICommonsList<CSSSelector> allSelectors = rule.getAllSelectors();
 
             // Handle multi-selector rules
             if (allSelectors.size() > 1) {
-                return htmlChecker.multiSelectorControl(rule);
+                return getUsedSelectorsFromStyleRule(rule, isSelectorUsed);
             }
 
             // Handle single-selector rules
-            if (htmlChecker.isSelectorUsed(allSelectors.get(0).getAsCSSString())) {
+            if (isSelectorUsed.test(allSelectors.get(0))) {
                 return rule;
             }
 
@@ -110,6 +122,19 @@ public class VultureCSSCoreParser {
      * rules are used.
      */
     public static CSSMediaRule getUsedRulesFromMediaRule(CSSMediaRule mediaRule, VultureCSSCoreHTMLChecker htmlChecker) {
+        return getUsedRulesFromMediaRule(mediaRule, htmlChecker::isSelectorUsed);
+    }
+
+    /**
+     * Extracts and returns a CSSMediaRule containing only the style rules that
+     * are used.
+     *
+     * @param mediaRule The media rule to check for used CSS rules.
+     * @param isSelectorUsed The function that tells if a selector is used.
+     * @return A new CSSMediaRule containing only the used rules, or null if no
+     * rules are used.
+     */
+    public static CSSMediaRule getUsedRulesFromMediaRule(CSSMediaRule mediaRule, Predicate<CSSSelector> isSelectorUsed) {
 
         // List to store the used CSSStyleRules
         ICommonsList<CSSStyleRule> usedRules = new CommonsArrayList<>();
@@ -118,7 +143,7 @@ public class VultureCSSCoreParser {
         for (CSSStyleRule rule : mediaRule.getAllStyleRules()) {
 
             // Check if the rule is used; if used, it will return the rule, otherwise null
-            CSSStyleRule ruleIfUsed = checkIfRuleIsUsed(rule, htmlChecker);
+            CSSStyleRule ruleIfUsed = checkIfRuleIsUsed(rule, isSelectorUsed);
 
             // If the rule is used, add it to the list of used rules
             if (ruleIfUsed != null) {
@@ -157,6 +182,19 @@ public class VultureCSSCoreParser {
      * no rules are used.
      */
     public static CSSSupportsRule getUsedRulesFromSupportsRule(CSSSupportsRule supportsRule, VultureCSSCoreHTMLChecker htmlChecker) {
+        return getUsedRulesFromSupportsRule(supportsRule, htmlChecker::isSelectorUsed);
+    }
+
+    /**
+     * Filters and returns a CSSSupportsRule containing only the CSS rules that
+     * are used.
+     *
+     * @param supportsRule The supports rule to be filtered for used CSS rules.
+     * @param isSelectorUsed The function that tells if a selector is used.
+     * @return A new CSSSupportsRule containing only the used rules, or null if
+     * no rules are used.
+     */
+    public static CSSSupportsRule getUsedRulesFromSupportsRule(CSSSupportsRule supportsRule, Predicate<CSSSelector> isSelectorUsed) {
 
         // List to store the used CSSStyleRules
         ICommonsList<CSSStyleRule> usedRules = new CommonsArrayList<>();
@@ -165,7 +203,7 @@ public class VultureCSSCoreParser {
         for (CSSStyleRule rule : supportsRule.getAllStyleRules()) {
 
             // Check if the rule is used in the HTML context
-            CSSStyleRule ruleIfUsed = checkIfRuleIsUsed(rule, htmlChecker);
+            CSSStyleRule ruleIfUsed = checkIfRuleIsUsed(rule, isSelectorUsed);
 
             // If the rule is used, add it to the list of used rules
             if (ruleIfUsed != null) {
@@ -193,6 +231,35 @@ public class VultureCSSCoreParser {
         }
     }
 
+    /**
+     * Returns a copy of a style rule with multiple selectors, containing only
+     * the selectors that are used. The copy has no declarations if none of
+     * the selectors is used.
+     *
+     * @param rule The style rule to filter.
+     * @param isSelectorUsed The function that tells if a selector is used.
+     * @return A new CSSStyleRule with the used selectors.
+     */
+    public static CSSStyleRule getUsedSelectorsFromStyleRule(CSSStyleRule rule, Predicate<CSSSelector> isSelectorUsed) {
+
+        CSSStyleRule finalRule = new CSSStyleRule();
+
+        for (CSSSelector selector : rule.getAllSelectors()) {
+
+            if (selector.hasMembers() && isSelectorUsed.test(selector)) {
+                finalRule.addSelector(selector);
+            }
+
+        }
+
+        if (finalRule.hasSelectors()) {
+            rule.getAllDeclarations().forEach(finalRule::addDeclaration);
+        }
+
+        return finalRule;
+
+    }
+
     /**
      * Extracts and returns a list of all CSS stylesheet URLs from the given
      * HTML content.
@@ -205,12 +272,25 @@ public class VultureCSSCoreParser {
      */
     public static List<Carcass> extractAllStyleSheetsUrls(String html, URL htmlUrl) {
 
+        // Parse the HTML document using Jsoup
+        return extractAllStyleSheetsUrls(Jsoup.parse(html), htmlUrl);
+    }
+
+    /**
+     * Extracts and returns a list of all CSS stylesheet URLs from an already
+     * parsed HTML document.
+     *
+     * @param doc The parsed HTML document.
+     * @param htmlUrl The base URL of the HTML document to resolve relative
+     * paths.
+     * @return A list of Carcass objects, each containing the URL of a
+     * stylesheet.
+     */
+    public static List<Carcass> extractAllStyleSheetsUrls(Document doc, URL htmlUrl) {
+
         // List to store the extracted CSS stylesheet URLs
         List<Carcass> carcasses = new ArrayList<>();
 
-        // Parse the HTML document using Jsoup
-        Document doc = Jsoup.parse(html);
-
         // Select all link elements with the rel attribute set to 'stylesheet'
         Elements cssLinks = doc.select("link[rel='stylesheet']");
 
@@ -0,0 +1,406 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import java.util.Arrays;
+
+/**
+ * Removes pseudo-classes and pseudo-elements from a selector.
+ *
+ * Jsoup raises an exception when pseudo-classes and pseudo-elements are
+ * present in the selector. To avoid this I exclude pseudo-classes and
+ * pseudo-elements in the selection through Jsoup, what is important to verify
+ * is the selector.
+ *
+ * The table of known pseudo-classes is compiled once into a trie, so a selector
+ * is stripped in a single left-to-right pass and nothing is allocated when
+ * there is nothing to strip.
+ *
+ * @link https://developer.mozilla.org/fr/docs/Web/CSS/Pseudo-classes
+ * @link https://developer.mozilla.org/en-US/docs/Web/CSS/Pseudo-elements
+ * @author .Maui
+ */
+public final class VultureCSSCorePseudoClassStripper {
+
+    private static final String[] PSEUDO_CLASSES = {
+        "::visited",
+        "::valid",
+        "::target",
+        "::spelling-error",
+        "::selection",
+        "::scope",
+        "::root",
+        "::right",
+        "::required",
+        "::read-write",
+        "::read-only",
+        "::placeholder-shown",
+        "::placeholder",
+        "::out-of-range",
+        "::optional",
+        "::only-of-type",
+        "::only-child",
+        "::marker",
+        "::link",
+        "::left",
+        "::last-of-type",
+        "::last-child",
+        "::invalid",
+        "::indeterminate",
+        "::in-range",
+        "::hover",
+        "::grammar-error",
+        "::fullscreen",
+        "::focus",
+        "::first-of-type",
+        "::first-line",
+        "::first-letter",
+        "::first-child",
+        "::first",
+        "::enabled",
+        "::empty",
+        "::disabled",
+        "::default",
+        "::cue",
+        "::checked",
+        "::before",
+        "::backdrop",
+        "::any",
+        "::after",
+        "::active",
+        "::-webkit-slider-thumb",
+        "::-webkit-slider-runnable-track",
+        "::-webkit-progress-value",
+        "::-webkit-progress-bar",
+        "::-ms-value",
+        "::-ms-track",
+        "::-ms-tooltip",
+        "::-ms-ticks-before",
+        "::-ms-ticks-after",
+        "::-ms-thumb",
+        "::-ms-reveal",
+        "::-ms-fill-upper",
+        "::-ms-fill-lower",
+        "::-ms-fill",
+        "::-ms-expand",
+        "::-ms-clear",
+        "::-ms-check",
+        "::-ms-browse",
+        "::-moz-range-track",
+        "::-moz-range-thumb",
+        "::-moz-range-progress",
+        "::-moz-progress-bar",
+        ":visited",
+        ":valid",
+        ":target",
+        ":scope",
+        ":root",
+        ":right",
+        ":required",
+        ":read-write",
+        ":read-only",
+        ":placeholder-shown",
+        ":placeholder",
+        ":out-of-range",
+        ":optional",
+        ":only-of-type",
+        ":only-child",
+        ":link",
+        ":left",
+        ":last-of-type",
+        ":last-child",
+        ":invalid",
+        ":indeterminate",
+        ":in-range",
+        ":hover",
+        ":fullscreen",
+        ":focus-within",
+        ":focus-visible",
+        ":focus",
+        ":first-of-type",
+        ":first-line",
+        ":first-letter",
+        ":first-child",
+        ":first",
+        ":enabled",
+        ":empty",
+        ":disabled",
+        ":defined",
+        ":default",
+        ":checked",
+        ":blank",
+        ":before",
+        ":any-link",
+        ":any",
+        ":after",
+        ":active",
+        ":-ms-input-placeholder"
+    };
+
+    /**
+     * Functional pseudo-classes, removed together with their arguments. It is
+     * possible that pseudo classes are also used inside the not(), so the
+     * whole parenthesized argument is skipped, nested parentheses included.
+     */
+    private static final String[] PSEUDO_CLASSES_WITH_BRACKETS = {
+        ":where",
+        ":nth-col",
+        ":nth-last-col",
+        ":dir",
+        ":lang",
+        ":nth-of-type",
+        ":nth-last-of-type",
+        ":nth-last-child",
+        ":nth-child",
+        ":not",
+        ":is",
+        "::where",
+        "::nth-col",
+        "::dir",
+        "::lang",
+        "::nth-of-type",
+        "::nth-last-of-type",
+        "::nth-last-child",
+        "::nth-child",
+        "::not",
+        "::is"
+    };
+
+    private static final Node ROOT = new Node();
+
+    static {
+        for (String pseudo : PSEUDO_CLASSES) {
+            ROOT.insert(pseudo, false);
+        }
+        for (String pseudo : PSEUDO_CLASSES_WITH_BRACKETS) {
+            ROOT.insert(pseudo, true);
+        }
+    }
+
+    private VultureCSSCorePseudoClassStripper() {
+    }
+
+    /**
+     *
+     * @internal Examples of output of this function
+     *
+     * :root -> :root a:after -> a a[href^="javascript:"]:after ->
+     * a[href^="javascript:"] li:not(.active):hover -> li
+     *
+     * @param selector
+     * @return the selector without the known pseudo-classes, the same instance
+     * if nothing was removed
+     */
+    public static String strip(String selector) {
+
+        if ("".equals(selector) || selector.startsWith(":") || selector.indexOf(':') < 0) {
+            return selector;
+        }
+
+        StringBuilder sb = null;
+        int copiedUpTo = 0;
+        int length = selector.length();
+        int i = 0;
+
+        while (i < length) {
+
+            char ch = selector.charAt(i);
+
+            if (ch == '\\') {
+                // Escaped characters, like in .sm\:flex, are part of a name.
+                i += 2;
+            } else if (ch == '"' || ch == '\'') {
+                i = skipString(selector, i);
+            } else if (ch == ':') {
+
+                int end = match(selector, i);
+
+                if (end > i) {
+                    if (sb == null) {
+                        sb = new StringBuilder(length);
+                    }
+                    sb.append(selector, copiedUpTo, i);
+                    copiedUpTo = end;
+                    i = end;
+                } else {
+                    i++;
+                }
+
+            } else {
+                i++;
+            }
+        }
+
+        if (sb == null) {
+            return selector;
+        }
+
+        return sb.append(selector, Math.min(copiedUpTo, length), length).toString();
+
+    }
+
+    /**
+     * Finds the longest known pseudo-class starting at the given position.
+     *
+     * @return the position right after the pseudo-class (arguments included),
+     * or the start position if there is no match
+     */
+    private static int match(String selector, int start) {
+
+        Node node = ROOT;
+        int matchEnd = start;
+        int length = selector.length();
+
+        for (int i = start; i < length; i++) {
+
+            node = node.child(Character.toLowerCase(selector.charAt(i)));
+
+            if (node == null) {
+                break;
+            }
+
+            if (node.terminal) {
+
+                int next = i + 1;
+
+                if (node.withBrackets) {
+                    if (next < length && selector.charAt(next) == '(') {
+                        matchEnd = skipBrackets(selector, next);
+                    }
+                } else if (next >= length || !isNameChar(selector.charAt(next))) {
+                    matchEnd = next;
+                }
+            }
+        }
+
+        return matchEnd;
+
+    }
+
+    private static int skipBrackets(String selector, int open) {
+
+        int depth = 0;
+        int length = selector.length();
+        int i = open;
+
+        while (i < length) {
+
+            char ch = selector.charAt(i);
+
+            if (ch == '\\') {
+                i += 2;
+                continue;
+            } else if (ch == '"' || ch == '\'') {
+                i = skipString(selector, i);
+                continue;
+            } else if (ch == '(') {
+                depth++;
+            } else if (ch == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+
+            i++;
+        }
+
+        return length;
+
+    }
+
+    private static int skipString(String selector, int open) {
+
+        char quote = selector.charAt(open);
+        int length = selector.length();
+
+        for (int i = open + 1; i < length; i++) {
+
+            char ch = selector.charAt(i);
+
+            if (ch == '\\') {
+                i++;
+            } else if (ch == quote) {
+                return i + 1;
+            }
+        }
+
+        return length;
+
+    }
+
+    private static boolean isNameChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '-' || ch == '_' || ch >= 0x80;
+    }
+
+    private static final class Node {
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal;
+        private boolean withBrackets;
+
+        private Node child(char key) {
+            int index = Arrays.binarySearch(this.keys, key);
+            return (index < 0) ? null : this.children[index];
+        }
+
+        private void insert(String pseudo, boolean withBrackets) {
+
+            Node node = this;
+
+            for (int i = 0; i < pseudo.length(); i++) {
+
+                char key = pseudo.charAt(i);
+                Node next = node.child(key);
+
+                if (next == null) {
+
+                    int index = -Arrays.binarySearch(node.keys, key) - 1;
+                    next = new Node();
+
+                    char[] keys = new char[node.keys.length + 1];
+                    Node[] children = new Node[node.children.length + 1];
+
+                    System.arraycopy(node.keys, 0, keys, 0, index);
+                    System.arraycopy(node.children, 0, children, 0, index);
+                    System.arraycopy(node.keys, index, keys, index + 1, node.keys.length - index);
+                    System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+
+                    keys[index] = key;
+                    children[index] = next;
+
+                    node.keys = keys;
+                    node.children = children;
+                }
+
+                node = next;
+            }
+
+            node.terminal = true;
+            node.withBrackets = withBrackets;
+        }
+    }
+
+}
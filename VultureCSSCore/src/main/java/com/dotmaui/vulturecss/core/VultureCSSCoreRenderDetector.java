@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+/**
+ * Tells, from the static HTML of a page, if the page must be rendered with its
+ * JavaScript to know which CSS it uses. The checks are cheap and run on the
+ * document already parsed:
+ * <ul>
+ * <li>an empty root element of a single page application, like
+ * {@code <div id="root"></div>};</li>
+ * <li>the scripts of a client-side framework, like React, Vue or
+ * Angular;</li>
+ * <li>a body without any visible element;</li>
+ * <li>inline scripts that change the classes of the elements.</li>
+ * </ul>
+ *
+ * @author .Maui
+ */
+public class VultureCSSCoreRenderDetector {
+
+    /**
+     * The ids of the root elements of the single page applications.
+     */
+    private static final Set<String> APP_ROOT_IDS = Set.of("root", "app", "__next", "__nuxt", "___gatsby", "svelte", "ember-app");
+
+    /**
+     * The attributes of the root elements of the single page applications.
+     */
+    private static final String[] APP_ROOT_ATTRIBUTES = {"ng-app", "ng-version", "data-reactroot", "data-v-app"};
+
+    /**
+     * Parts of the URLs of the scripts of the client-side frameworks.
+     */
+    private static final String[] FRAMEWORK_SCRIPTS = {"react", "vue.", "vue@", "/vue", "angular", "ember.", "svelte", "preact",
+        "backbone", "/_next/", "/_nuxt/", "polymer", "lit-element"};
+
+    /**
+     * The elements that are not visible in the body.
+     */
+    private static final Set<String> INVISIBLE_TAGS = Set.of("script", "noscript", "template", "style", "link", "meta");
+
+    /**
+     * The statements that change the classes of an element in a script.
+     */
+    private static final Pattern CLASS_CHANGE = Pattern.compile(
+            "classList\\s*\\.\\s*(?:add|toggle|replace)\\s*\\(|\\.className\\s*[+]?=[^=]|setAttribute\\s*\\(\\s*['\"]class['\"]"
+            + "|\\.(?:addClass|toggleClass)\\s*\\(");
+
+    /**
+     * Checks if the page must be rendered.
+     *
+     * @param document The static HTML of the page.
+     * @return the reason why the page must be rendered, or null if the static
+     * HTML is enough
+     */
+    public static String getRenderReason(Document document) {
+
+        String reason = getAppRoot(document);
+
+        if (reason != null) {
+            return reason;
+        }
+
+        reason = getFrameworkScript(document);
+
+        if (reason != null) {
+            return reason;
+        }
+
+        if (isBodyEmpty(document)) {
+            return "empty body";
+        }
+
+        for (Element script : document.getElementsByTag("script")) {
+            if (!script.hasAttr("src") && CLASS_CHANGE.matcher(script.data()).find()) {
+                return "classes changed by an inline script";
+            }
+        }
+
+        return null;
+    }
+
+    private static String getAppRoot(Document document) {
+
+        for (Element element : document.getAllElements()) {
+
+            boolean root = APP_ROOT_IDS.contains(element.id());
+
+            for (int i = 0; !root && i < APP_ROOT_ATTRIBUTES.length; i++) {
+                root = element.hasAttr(APP_ROOT_ATTRIBUTES[i]);
+            }
+
+            // A root already filled by the server doesn't need the scripts.
+            if (root && element.childrenSize() == 0) {
+                return "empty application root " + element.cssSelector();
+            }
+        }
+
+        return null;
+    }
+
+    private static String getFrameworkScript(Document document) {
+
+        for (Element script : document.getElementsByTag("script")) {
+
+            String src = script.attr("src").toLowerCase(Locale.ROOT);
+
+            for (String framework : FRAMEWORK_SCRIPTS) {
+                if (src.contains(framework)) {
+                    return "framework script " + script.attr("src");
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isBodyEmpty(Document document) {
+
+        Element body = document.body();
+
+        for (Element element : body.getAllElements()) {
+            if (element != body && !INVISIBLE_TAGS.contains(element.normalName())) {
+                return false;
+            }
+        }
+
+        return body.ownText().isBlank();
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Splits a CSS stylesheet into its top-level statements without parsing it:
+ * each rule with its block, like a style rule or a whole @media rule, and each
+ * at-statement ending with a semicolon, like @import, is returned on its own.
+ * Strings, comments, escapes, parentheses and nested braces are respected, so
+ * that a brace or a semicolon inside them doesn't end the statement.
+ *
+ * The stylesheet is read in small buffers, only the current statement is held
+ * in memory.
+ *
+ * @author .Maui
+ */
+public class VultureCSSCoreRuleSplitter {
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int length = 0;
+
+    private final StringBuilder statement = new StringBuilder();
+
+    private int braces = 0;
+    private int parentheses = 0;
+    private char quote = 0;
+    private boolean comment = false;
+    private boolean escape = false;
+    private boolean slash = false;
+    private boolean commentStar = false;
+    private boolean balanced = true;
+
+    public VultureCSSCoreRuleSplitter(Reader reader) {
+        this.reader = reader;
+    }
+
+    public VultureCSSCoreRuleSplitter(String css) {
+        this(new StringReader(css));
+    }
+
+    /**
+     * Reads the next top-level statement.
+     *
+     * @return the text of the statement, including the comments and the
+     * whitespace before it, or null at the end of the stylesheet
+     * @throws IOException If the stylesheet can't be read.
+     */
+    public String next() throws IOException {
+
+        while (true) {
+
+            if (this.position == this.length) {
+
+                this.length = this.reader.read(this.buffer);
+                this.position = 0;
+
+                if (this.length < 0) {
+                    this.length = 0;
+                    return end();
+                }
+
+                continue;
+            }
+
+            char ch = this.buffer[this.position++];
+            this.statement.append(ch);
+
+            boolean slash = false;
+
+            if (this.escape) {
+                this.escape = false;
+            } else if (this.comment) {
+                if (ch == '/' && this.commentStar) {
+                    this.comment = false;
+                }
+                this.commentStar = ch == '*';
+            } else if (ch == '\\') {
+                this.escape = true;
+            } else if (this.quote != 0) {
+                if (ch == this.quote) {
+                    this.quote = 0;
+                }
+            } else if (ch == '"' || ch == '\'') {
+                this.quote = ch;
+            } else if (ch == '*' && this.slash) {
+                this.comment = true;
+                this.commentStar = false;
+            } else if (ch == '/') {
+                slash = true;
+            } else if (ch == '(') {
+                this.parentheses++;
+            } else if (ch == ')') {
+                if (this.parentheses > 0) {
+                    this.parentheses--;
+                }
+            } else if (ch == '{') {
+                this.braces++;
+            } else if (ch == '}') {
+                if (this.braces == 0) {
+                    // A closing brace without its opening one.
+                    this.balanced = false;
+                } else if (--this.braces == 0) {
+                    this.slash = false;
+                    return take();
+                }
+            } else if (ch == ';' && this.braces == 0 && this.parentheses == 0) {
+                this.slash = false;
+                return take();
+            }
+
+            this.slash = slash;
+        }
+    }
+
+    private String take() {
+        String result = this.statement.toString();
+        this.statement.setLength(0);
+        this.parentheses = 0;
+        return result;
+    }
+
+    private String end() {
+
+        if (this.braces != 0 || this.quote != 0 || this.comment) {
+            this.balanced = false;
+        }
+
+        // Only whitespace and comments left.
+        if (isOnlyComments(this.statement)) {
+            this.statement.setLength(0);
+            return null;
+        }
+
+        return take();
+    }
+
+    private static boolean isOnlyComments(CharSequence text) {
+
+        int i = 0;
+
+        while (i < text.length()) {
+
+            if (Character.isWhitespace(text.charAt(i))) {
+                i++;
+            } else if (text.charAt(i) == '/' && i + 1 < text.length() && text.charAt(i + 1) == '*') {
+                int close = text.toString().indexOf("*/", i + 2);
+                if (close < 0) {
+                    return false;
+                }
+                i = close + 2;
+            } else {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Tells if the stylesheet read so far is well formed: every brace, string
+     * and comment opened was closed. If not, the statements may not be split
+     * the way a CSS parser would split them.
+     *
+     * @return true if the stylesheet is balanced
+     */
+    public boolean isBalanced() {
+        return this.balanced;
+    }
+
+}
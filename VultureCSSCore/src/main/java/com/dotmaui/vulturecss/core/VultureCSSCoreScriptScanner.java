@@ -0,0 +1,385 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import com.dotmaui.vulturecss.utils.HttpFetcher;
+import com.dotmaui.vulturecss.utils.Interface;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+/**
+ * Finds the class names the scripts of a page can add to its elements at
+ * runtime, like {@code el.classList.add('is-open')} or
+ * {@code el.className = 'modal-backdrop fade'}, without running them: every
+ * word of every string literal of the inline and linked scripts that can be a
+ * class name is collected. The result is a superset of the classes really
+ * added, cheap to compute, that the checker can use as a safelist (see
+ * {@link VultureCSSCoreDocumentIndex}).
+ *
+ * The scripts are only tokenized: comments and regular expression literals
+ * are skipped and the code inside the placeholders of the template literals
+ * is not taken as text.
+ *
+ * @author .Maui
+ */
+public class VultureCSSCoreScriptScanner {
+
+    /**
+     * Longer words are not taken as class names.
+     */
+    private static final int MAX_CLASS_NAME_LENGTH = 64;
+
+    /**
+     * The operators and punctuators after which a slash starts a regular
+     * expression.
+     */
+    private static final String REGEX_PRECEDING_CHARS = "(,=:[!&|?{};+-*%<>~^";
+
+    /**
+     * The keywords after which a slash starts a regular expression.
+     */
+    private static final Set<String> REGEX_PRECEDING_KEYWORDS = Set.of(
+            "return", "typeof", "instanceof", "in", "of", "new", "delete", "void",
+            "throw", "case", "do", "else", "yield", "await");
+
+    /**
+     * Collects the class names from the inline scripts of the page and from
+     * the scripts it links, downloaded one after the other with the given
+     * fetcher. The scripts that can't be downloaded are skipped.
+     *
+     * @param document The page.
+     * @param fetcher The fetcher of the linked scripts, or null to scan only
+     * the inline scripts.
+     * @return the class names
+     */
+    public static Set<String> getClassNames(Document document, HttpFetcher fetcher) {
+        return getClassNames(document, fetcher, null);
+    }
+
+    /**
+     * Collects the class names from the inline scripts of the page and from
+     * the scripts it links, downloaded with the given fetcher on the given
+     * executor. The scripts that can't be downloaded are skipped.
+     *
+     * @param document The page.
+     * @param fetcher The fetcher of the linked scripts, or null to scan only
+     * the inline scripts.
+     * @param executor The executor of the downloads, or null to download the
+     * scripts one after the other.
+     * @return the class names
+     */
+    public static Set<String> getClassNames(Document document, HttpFetcher fetcher, Executor executor) {
+
+        Set<String> classNames = new HashSet<>();
+        List<URL> linkedScripts = new ArrayList<>();
+
+        for (Element script : document.getElementsByTag("script")) {
+
+            String type = script.attr("type").toLowerCase(Locale.ROOT);
+
+            // JSON and templates are data, not code that changes the page.
+            if (type.contains("json") || type.contains("template")) {
+                continue;
+            }
+
+            if (!script.hasAttr("src")) {
+                scan(script.data(), classNames);
+                continue;
+            }
+
+            String src = script.absUrl("src");
+
+            if (fetcher != null && src.startsWith("http")) {
+
+                try {
+                    linkedScripts.add(new URL(src));
+                } catch (MalformedURLException ex) {
+                    // Not a script that can be downloaded.
+                }
+            }
+        }
+
+        if (executor == null || linkedScripts.size() < 2) {
+
+            for (URL url : linkedScripts) {
+                scan(url, fetcher, classNames);
+            }
+
+            return classNames;
+        }
+
+        List<CompletableFuture<Set<String>>> futures = new ArrayList<>(linkedScripts.size());
+
+        for (URL url : linkedScripts) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Set<String> scriptClassNames = new HashSet<>();
+                scan(url, fetcher, scriptClassNames);
+                return scriptClassNames;
+            }, executor));
+        }
+
+        for (CompletableFuture<Set<String>> future : futures) {
+            classNames.addAll(future.join());
+        }
+
+        return classNames;
+    }
+
+    private static void scan(URL url, HttpFetcher fetcher, Set<String> classNames) {
+
+        String content = Interface.downloadFromUrl(url, fetcher);
+
+        if (content != null) {
+            scan(content, classNames);
+        }
+    }
+
+    /**
+     * Collects the words of the string literals of a script that can be class
+     * names.
+     *
+     * @param script The JavaScript code.
+     * @param classNames The set where the class names are added.
+     */
+    public static void scan(CharSequence script, Set<String> classNames) {
+
+        int length = script.length();
+        int i = 0;
+        StringBuilder literal = new StringBuilder();
+
+        // The last character of code, to tell a regular expression from a division.
+        int previous = -1;
+
+        while (i < length) {
+
+            char ch = script.charAt(i);
+
+            if (ch == '/' && i + 1 < length && script.charAt(i + 1) == '/') {
+
+                while (i < length && script.charAt(i) != '\n') {
+                    i++;
+                }
+
+            } else if (ch == '/' && i + 1 < length && script.charAt(i + 1) == '*') {
+
+                int close = indexOf(script, "*/", i + 2);
+                i = (close < 0) ? length : close + 2;
+
+            } else if (ch == '/' && isRegexStart(script, previous)) {
+
+                // Its quotes and backticks don't open strings.
+                i = skipRegex(script, i + 1);
+                previous = i - 1;
+
+            } else if (ch == '"' || ch == '\'' || ch == '`') {
+
+                i++;
+                literal.setLength(0);
+
+                while (i < length && script.charAt(i) != ch) {
+
+                    char c = script.charAt(i);
+
+                    if (c == '\\') {
+                        // An escape sequence separates the words.
+                        literal.append(' ');
+                        i += 2;
+                    } else if (c == '\n' && ch != '`') {
+                        // An unterminated string.
+                        break;
+                    } else if (ch == '`' && c == '$' && i + 1 < length && script.charAt(i + 1) == '{') {
+                        // The code of a placeholder, ${...}, separates the words.
+                        literal.append(' ');
+                        i = skipPlaceholder(script, i + 2);
+                    } else {
+                        literal.append(c);
+                        i++;
+                    }
+                }
+
+                addWords(literal, classNames);
+                previous = Math.min(i, length - 1);
+                i++;
+
+            } else {
+
+                if (!Character.isWhitespace(ch)) {
+                    previous = i;
+                }
+
+                i++;
+            }
+        }
+    }
+
+    /**
+     * A slash starts a regular expression where a value is expected: at the
+     * start of the script, after an operator or a punctuator, or after a
+     * keyword like return. After a name, a number, a closing parenthesis or
+     * bracket, or a string, it is a division.
+     *
+     * @param script The JavaScript code.
+     * @param previous The index of the last character of code before the
+     * slash, -1 if none.
+     */
+    private static boolean isRegexStart(CharSequence script, int previous) {
+
+        if (previous < 0) {
+            return true;
+        }
+
+        char ch = script.charAt(previous);
+
+        if (REGEX_PRECEDING_CHARS.indexOf(ch) >= 0) {
+            return true;
+        }
+
+        if (!Character.isJavaIdentifierPart(ch)) {
+            return false;
+        }
+
+        int start = previous;
+
+        while (start > 0 && Character.isJavaIdentifierPart(script.charAt(start - 1))) {
+            start--;
+        }
+
+        return REGEX_PRECEDING_KEYWORDS.contains(script.subSequence(start, previous + 1).toString());
+    }
+
+    /**
+     * Skips the body of a regular expression, its character classes
+     * included, and returns the index after its closing slash. An
+     * unterminated expression ends at the end of the line.
+     */
+    private static int skipRegex(CharSequence script, int start) {
+
+        boolean inClass = false;
+        int i = start;
+
+        while (i < script.length()) {
+
+            char ch = script.charAt(i);
+
+            if (ch == '\n') {
+                return i;
+            } else if (ch == '\\') {
+                i += 2;
+                continue;
+            } else if (ch == '[') {
+                inClass = true;
+            } else if (ch == ']') {
+                inClass = false;
+            } else if (ch == '/' && !inClass) {
+                return i + 1;
+            }
+
+            i++;
+        }
+
+        return script.length();
+    }
+
+    private static int skipPlaceholder(CharSequence script, int start) {
+
+        int depth = 1;
+        int i = start;
+
+        while (i < script.length() && depth > 0) {
+
+            char ch = script.charAt(i++);
+
+            if (ch == '{') {
+                depth++;
+            } else if (ch == '}') {
+                depth--;
+            }
+        }
+
+        return i;
+    }
+
+    private static void addWords(CharSequence literal, Set<String> classNames) {
+
+        int length = literal.length();
+        int i = 0;
+
+        while (i < length) {
+
+            while (i < length && !isNameChar(literal.charAt(i))) {
+                i++;
+            }
+
+            int start = i;
+
+            while (i < length && isNameChar(literal.charAt(i))) {
+                i++;
+            }
+
+            if (i > start && i - start <= MAX_CLASS_NAME_LENGTH && isClassName(literal, start, i)) {
+                classNames.add(literal.subSequence(start, i).toString());
+            }
+        }
+    }
+
+    private static boolean isNameChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '-' || ch == '_' || ch > 0x7F;
+    }
+
+    /**
+     * A class name can't start with a digit, nor with a hyphen followed by a
+     * digit.
+     */
+    private static boolean isClassName(CharSequence word, int start, int end) {
+
+        char first = word.charAt(start);
+
+        if (first == '-') {
+            return end > start + 1 && !Character.isDigit(word.charAt(start + 1)) && !(word.charAt(start + 1) == '-' && end == start + 2);
+        }
+
+        return !Character.isDigit(first);
+    }
+
+    private static int indexOf(CharSequence text, String value, int from) {
+
+        for (int i = from; i <= text.length() - value.length(); i++) {
+            if (text.charAt(i) == value.charAt(0) && text.subSequence(i, i + value.length()).toString().equals(value)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+}
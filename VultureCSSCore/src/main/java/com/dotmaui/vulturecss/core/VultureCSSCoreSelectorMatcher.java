@@ -0,0 +1,413 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import com.helger.css.decl.CSSSelector;
+import com.helger.css.decl.CSSSelectorAttribute;
+import com.helger.css.decl.CSSSelectorMemberFunctionLike;
+import com.helger.css.decl.CSSSelectorMemberHost;
+import com.helger.css.decl.CSSSelectorMemberHostContext;
+import com.helger.css.decl.CSSSelectorMemberNot;
+import com.helger.css.decl.CSSSelectorMemberPseudoHas;
+import com.helger.css.decl.CSSSelectorMemberPseudoIs;
+import com.helger.css.decl.CSSSelectorMemberPseudoWhere;
+import com.helger.css.decl.CSSSelectorMemberSlotted;
+import com.helger.css.decl.CSSSelectorSimpleMember;
+import com.helger.css.decl.ECSSAttributeOperator;
+import com.helger.css.decl.ECSSSelectorCombinator;
+import com.helger.css.decl.ICSSSelectorMember;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+
+/**
+ * Matches ph-css selectors against the document without serializing them to a
+ * string and re-parsing them through jsoup.
+ *
+ * The selector is split into compounds and matched right-to-left: the
+ * candidates of the rightmost compound are taken from the smallest list of the
+ * {@link VultureCSSCoreDocumentIndex}, then the combinators are followed
+ * towards the left.
+ *
+ * Pseudo-classes and pseudo-elements are handled structurally: they depend on
+ * the state of the page (:hover, :checked...) or on its rendering (::before),
+ * so they always match, exactly as if they were removed from the selector.
+ *
+ * @author .Maui
+ */
+public class VultureCSSCoreSelectorMatcher {
+
+    private final VultureCSSCoreDocumentIndex documentIndex;
+
+    /**
+     * @param documentIndex
+     */
+    public VultureCSSCoreSelectorMatcher(VultureCSSCoreDocumentIndex documentIndex) {
+        this.documentIndex = documentIndex;
+    }
+
+    /**
+     * Checks if the selector matches at least one element of the document.
+     *
+     * @param selector
+     * @return TRUE or FALSE, or null if the selector uses something that is not
+     * supported natively (namespaces, for example) and must be checked by
+     * jsoup.
+     */
+    public Boolean matches(CSSSelector selector) {
+
+        List<Compound> compounds = compile(selector);
+
+        if (compounds == null) {
+            return null;
+        }
+
+        int last = compounds.size() - 1;
+        Compound rightmost = compounds.get(last);
+
+        for (Element candidate : candidates(rightmost)) {
+            if (rightmost.matches(candidate) && matchesLeft(candidate, compounds, last)) {
+                return Boolean.TRUE;
+            }
+        }
+
+        return Boolean.FALSE;
+
+    }
+
+    /**
+     * Checks the compounds on the left of the given one, following the
+     * combinator that joins them.
+     */
+    private static boolean matchesLeft(Element element, List<Compound> compounds, int index) {
+
+        if (index == 0) {
+            return true;
+        }
+
+        Compound compound = compounds.get(index - 1);
+        ECSSSelectorCombinator combinator = compounds.get(index).combinator;
+
+        switch (combinator) {
+
+            case GREATER -> {
+                Element parent = element.parent();
+                return parent != null && compound.matches(parent) && matchesLeft(parent, compounds, index - 1);
+            }
+
+            case PLUS -> {
+                Element sibling = previousElementSibling(element);
+                return sibling != null && compound.matches(sibling) && matchesLeft(sibling, compounds, index - 1);
+            }
+
+            case TILDE -> {
+                for (Element sibling = previousElementSibling(element); sibling != null; sibling = previousElementSibling(sibling)) {
+                    if (compound.matches(sibling) && matchesLeft(sibling, compounds, index - 1)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            default -> {
+                for (Element ancestor = element.parent(); ancestor != null; ancestor = ancestor.parent()) {
+                    if (compound.matches(ancestor) && matchesLeft(ancestor, compounds, index - 1)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+
+    }
+
+    private static Element previousElementSibling(Element element) {
+
+        Node node = element.previousSibling();
+
+        while (node != null && !(node instanceof Element)) {
+            node = node.previousSibling();
+        }
+
+        return (Element) node;
+
+    }
+
+    /**
+     * Returns the shortest list of elements that can match the compound.
+     */
+    private List<Element> candidates(Compound compound) {
+
+        List<Element> best = null;
+
+        for (String id : compound.ids) {
+            best = shortest(best, this.documentIndex.getElementsById(id));
+        }
+
+        for (String className : compound.classes) {
+            best = shortest(best, this.documentIndex.getElementsByClass(className));
+        }
+
+        for (CSSSelectorAttribute attribute : compound.attributes) {
+            best = shortest(best, this.documentIndex.getElementsByAttribute(attribute.getAttrName()));
+        }
+
+        if (compound.tagName != null) {
+            best = shortest(best, this.documentIndex.getElementsByTag(compound.tagName));
+        }
+
+        return (best == null) ? this.documentIndex.getAllElements() : best;
+
+    }
+
+    private static List<Element> shortest(List<Element> best, List<Element> elements) {
+        return (best == null || elements.size() < best.size()) ? elements : best;
+    }
+
+    /**
+     * Splits the selector into compounds.
+     *
+     * @return the compounds, or null if the selector is not supported.
+     */
+    private List<Compound> compile(CSSSelector selector) {
+
+        List<Compound> compounds = new ArrayList<>();
+        Compound compound = new Compound(null);
+
+        for (ICSSSelectorMember member : selector.getAllMembers()) {
+
+            if (member instanceof ECSSSelectorCombinator combinator) {
+
+                compounds.add(compound);
+                compound = new Compound(combinator);
+
+            } else if (member instanceof CSSSelectorSimpleMember simpleMember) {
+
+                String value = simpleMember.getValue();
+
+                if (simpleMember.isPseudo()) {
+                    continue;
+                }
+
+                if (value.indexOf('|') >= 0) {
+                    // Namespaces are left to jsoup.
+                    return null;
+                }
+
+                if (simpleMember.isClass()) {
+                    String className = unescape(value.substring(1));
+
+                    // A class the scripts can add to any element doesn't restrict the compound.
+                    if (!this.documentIndex.isVirtualClass(className)) {
+                        compound.classes.add(className);
+                    }
+                } else if (simpleMember.isHash()) {
+                    compound.ids.add(unescape(value.substring(1)));
+                } else if (!"*".equals(value)) {
+                    compound.tagName = unescape(value).toLowerCase(Locale.ROOT);
+                }
+
+            } else if (member instanceof CSSSelectorAttribute attribute) {
+
+                if (attribute.getNamespacePrefix() != null) {
+                    return null;
+                }
+
+                compound.attributes.add(attribute);
+
+            } else if (member instanceof CSSSelectorMemberNot
+                    || member instanceof CSSSelectorMemberFunctionLike
+                    || member instanceof CSSSelectorMemberPseudoHas
+                    || member instanceof CSSSelectorMemberPseudoIs
+                    || member instanceof CSSSelectorMemberPseudoWhere
+                    || member instanceof CSSSelectorMemberHost
+                    || member instanceof CSSSelectorMemberHostContext
+                    || member instanceof CSSSelectorMemberSlotted) {
+
+                // Functional pseudo-classes always match, like the simple ones.
+                continue;
+
+            } else {
+
+                return null;
+
+            }
+        }
+
+        compounds.add(compound);
+
+        return compounds;
+
+    }
+
+    /**
+     * Resolves the CSS escapes of an identifier, like in .sm\:flex or .\31 0.
+     *
+     * @param value
+     * @return the unescaped value, the same instance if there are no escapes
+     */
+    static String unescape(String value) {
+
+        int backslash = value.indexOf('\\');
+
+        if (backslash < 0) {
+            return value;
+        }
+
+        StringBuilder sb = new StringBuilder(value.length()).append(value, 0, backslash);
+        int length = value.length();
+        int i = backslash;
+
+        while (i < length) {
+
+            char ch = value.charAt(i);
+
+            if (ch != '\\' || i + 1 >= length) {
+                sb.append(ch);
+                i++;
+                continue;
+            }
+
+            int hexEnd = i + 1;
+            while (hexEnd < length && hexEnd < i + 7 && Character.digit(value.charAt(hexEnd), 16) >= 0) {
+                hexEnd++;
+            }
+
+            if (hexEnd > i + 1) {
+
+                sb.appendCodePoint(Integer.parseInt(value, i + 1, hexEnd, 16));
+
+                // A single whitespace terminates the hex escape.
+                i = (hexEnd < length && Character.isWhitespace(value.charAt(hexEnd))) ? hexEnd + 1 : hexEnd;
+
+            } else {
+
+                sb.append(value.charAt(i + 1));
+                i += 2;
+
+            }
+        }
+
+        return sb.toString();
+
+    }
+
+    /**
+     * A sequence of simple selectors not separated by combinators, like
+     * div.item[data-id].
+     */
+    private static final class Compound {
+
+        private final ECSSSelectorCombinator combinator;
+        private String tagName;
+        private final List<String> ids = new ArrayList<>(1);
+        private final List<String> classes = new ArrayList<>(2);
+        private final List<CSSSelectorAttribute> attributes = new ArrayList<>(1);
+
+        private Compound(ECSSSelectorCombinator combinator) {
+            this.combinator = combinator;
+        }
+
+        private boolean matches(Element element) {
+
+            if (this.tagName != null && !this.tagName.equals(element.normalName())) {
+                return false;
+            }
+
+            for (String id : this.ids) {
+                if (!id.equals(element.id())) {
+                    return false;
+                }
+            }
+
+            for (String className : this.classes) {
+                if (!element.hasClass(className)) {
+                    return false;
+                }
+            }
+
+            for (CSSSelectorAttribute attribute : this.attributes) {
+                if (!matchesAttribute(element, attribute)) {
+                    return false;
+                }
+            }
+
+            return true;
+
+        }
+
+        /**
+         * Attribute values are compared ignoring the case, as jsoup does.
+         */
+        private static boolean matchesAttribute(Element element, CSSSelectorAttribute attribute) {
+
+            String name = unescape(attribute.getAttrName()).toLowerCase(Locale.ROOT);
+
+            if (!element.hasAttr(name)) {
+                return false;
+            }
+
+            ECSSAttributeOperator operator = attribute.getOperator();
+
+            if (operator == null) {
+                return true;
+            }
+
+            String expected = unquote(attribute.getAttrValue()).toLowerCase(Locale.ROOT);
+            String actual = element.attr(name).trim().toLowerCase(Locale.ROOT);
+
+            return switch (operator) {
+                case EQUALS ->
+                    actual.equals(expected);
+                case INCLUDES ->
+                    !expected.isEmpty() && (" " + actual.replaceAll("\\s+", " ") + " ").contains(" " + expected + " ");
+                case DASHMATCH ->
+                    actual.equals(expected) || actual.startsWith(expected + "-");
+                case BEGINMATCH ->
+                    !expected.isEmpty() && actual.startsWith(expected);
+                case ENDMATCH ->
+                    !expected.isEmpty() && actual.endsWith(expected);
+                case CONTAINSMATCH ->
+                    !expected.isEmpty() && actual.contains(expected);
+            };
+
+        }
+
+        private static String unquote(String value) {
+
+            if (value.length() >= 2) {
+                char first = value.charAt(0);
+                if ((first == '"' || first == '\'') && value.charAt(value.length() - 1) == first) {
+                    return unescape(value.substring(1, value.length() - 1));
+                }
+            }
+
+            return unescape(value);
+
+        }
+    }
+
+}
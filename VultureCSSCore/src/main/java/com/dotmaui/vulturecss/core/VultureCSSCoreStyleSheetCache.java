@@ -0,0 +1,236 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import com.helger.css.ECSSVersion;
+import com.helger.css.decl.CascadingStyleSheet;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A bounded, thread-safe cache of parsed stylesheets, keyed by a SHA-256 hash
+ * of the CSS content. It can be shared by many Process calls (see
+ * {@link com.dotmaui.vulturecss.models.VultureCSSOptions#setStyleSheetCache})
+ * so that the same stylesheet, like bootstrap.min.css, is parsed only once.
+ *
+ * The least recently used stylesheets are evicted when the estimated size of
+ * the cache exceeds the maximum size.
+ *
+ * The cached stylesheets are never handed out: each caller gets its own deep
+ * copy (see {@link VultureCSSCoreStyleSheetCopier}), which is still much
+ * cheaper than parsing the CSS again, so a caller that modifies its stylesheet
+ * can't change what the other callers see.
+ *
+ * @author .Maui
+ */
+public class VultureCSSCoreStyleSheetCache {
+
+    /**
+     * Rough number of bytes of heap used by the parsed stylesheet for each
+     * character of CSS.
+     */
+    private static final int BYTES_PER_CSS_CHAR = 12;
+
+    private final long maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param maxSize The maximum estimated size of the cache, in bytes.
+     */
+    public VultureCSSCoreStyleSheetCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the stylesheet parsed from the given CSS, parsing it with the
+     * given parser only if it is not in the cache yet.
+     *
+     * @param css The raw CSS stylesheet.
+     * @param version The CSS version used to parse the stylesheet.
+     * @param parser The function that parses the CSS.
+     * @return A copy of the parsed stylesheet, owned by the caller.
+     * @throws Exception If the parser fails.
+     */
+    public CascadingStyleSheet get(String css, ECSSVersion version, Callable<CascadingStyleSheet> parser) throws Exception {
+
+        String key = hash(css) + ":" + version.name();
+        CascadingStyleSheet styleSheet = null;
+
+        synchronized (this) {
+
+            Entry entry = this.entries.get(key);
+
+            if (entry != null) {
+                this.hits++;
+                styleSheet = entry.styleSheet;
+            } else {
+                this.misses++;
+            }
+        }
+
+        // The copy is made outside of the lock too.
+        if (styleSheet != null) {
+            return VultureCSSCoreStyleSheetCopier.copy(styleSheet);
+        }
+
+        // The CSS is parsed outside of the lock, so that other stylesheets can be
+        // read in the meantime.
+        styleSheet = parser.call();
+        long estimatedSize = (long) css.length() * BYTES_PER_CSS_CHAR;
+
+        if (styleSheet != null && estimatedSize <= this.maxSize) {
+            // The parsed instance goes to the caller, the cache keeps its own copy.
+            put(key, new Entry(VultureCSSCoreStyleSheetCopier.copy(styleSheet), estimatedSize));
+        }
+
+        return styleSheet;
+
+    }
+
+    private synchronized void put(String key, Entry entry) {
+
+        Entry previous = this.entries.put(key, entry);
+
+        if (previous != null) {
+            this.size -= previous.estimatedSize;
+        }
+
+        this.size += entry.estimatedSize;
+
+        Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+
+        while (this.size > this.maxSize && iterator.hasNext()) {
+            this.size -= iterator.next().getValue().estimatedSize;
+            iterator.remove();
+            this.evictions++;
+        }
+
+    }
+
+    private static String hash(String css) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(css.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+
+    }
+
+    /**
+     * Removes all the stylesheets from the cache.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Get the maximum estimated size of the cache, in bytes
+     *
+     * @return the value of maxSize
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the estimated size of the cached stylesheets, in bytes
+     *
+     * @return the estimated size
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the number of cached stylesheets
+     *
+     * @return the number of stylesheets
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of stylesheets found in the cache
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of stylesheets that had to be parsed
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of stylesheets evicted to respect the maximum size
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the ratio between hits and requests
+     *
+     * @return the hit rate, between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return (requests == 0) ? 0 : (double) hits / requests;
+    }
+
+    private static final class Entry {
+
+        private final CascadingStyleSheet styleSheet;
+        private final long estimatedSize;
+
+        private Entry(CascadingStyleSheet styleSheet, long estimatedSize) {
+            this.styleSheet = styleSheet;
+            this.estimatedSize = estimatedSize;
+        }
+    }
+
+}
@@ -0,0 +1,431 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import com.helger.css.ICSSSourceLocationAware;
+import com.helger.css.decl.CSSDeclaration;
+import com.helger.css.decl.CSSExpression;
+import com.helger.css.decl.CSSExpressionMemberFunction;
+import com.helger.css.decl.CSSExpressionMemberLineNames;
+import com.helger.css.decl.CSSExpressionMemberMath;
+import com.helger.css.decl.CSSExpressionMemberMathProduct;
+import com.helger.css.decl.CSSExpressionMemberMathUnitProduct;
+import com.helger.css.decl.CSSExpressionMemberTermSimple;
+import com.helger.css.decl.CSSExpressionMemberTermURI;
+import com.helger.css.decl.CSSFontFaceRule;
+import com.helger.css.decl.CSSImportRule;
+import com.helger.css.decl.CSSKeyframesBlock;
+import com.helger.css.decl.CSSKeyframesRule;
+import com.helger.css.decl.CSSMediaExpression;
+import com.helger.css.decl.CSSMediaQuery;
+import com.helger.css.decl.CSSMediaRule;
+import com.helger.css.decl.CSSNamespaceRule;
+import com.helger.css.decl.CSSPageMarginBlock;
+import com.helger.css.decl.CSSPageRule;
+import com.helger.css.decl.CSSSelector;
+import com.helger.css.decl.CSSSelectorMemberFunctionLike;
+import com.helger.css.decl.CSSSelectorMemberHost;
+import com.helger.css.decl.CSSSelectorMemberHostContext;
+import com.helger.css.decl.CSSSelectorMemberNot;
+import com.helger.css.decl.CSSSelectorMemberPseudoHas;
+import com.helger.css.decl.CSSSelectorMemberPseudoIs;
+import com.helger.css.decl.CSSSelectorMemberPseudoWhere;
+import com.helger.css.decl.CSSSelectorMemberSlotted;
+import com.helger.css.decl.CSSStyleRule;
+import com.helger.css.decl.CSSSupportsConditionDeclaration;
+import com.helger.css.decl.CSSSupportsConditionNegation;
+import com.helger.css.decl.CSSSupportsConditionNested;
+import com.helger.css.decl.CSSSupportsRule;
+import com.helger.css.decl.CSSURI;
+import com.helger.css.decl.CSSUnknownRule;
+import com.helger.css.decl.CSSViewportRule;
+import com.helger.css.decl.CascadingStyleSheet;
+import com.helger.css.decl.ICSSExpressionMathMember;
+import com.helger.css.decl.ICSSExpressionMember;
+import com.helger.css.decl.ICSSPageRuleMember;
+import com.helger.css.decl.ICSSSelectorMember;
+import com.helger.css.decl.ICSSSupportsConditionMember;
+import com.helger.css.decl.ICSSTopLevelRule;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deep copies of parsed stylesheets. The ph-css objects are mutable and their
+ * own clones are shallow, so every mutable node is copied here; only the
+ * immutable ones (simple selector members, attribute selectors, unit values
+ * and the operators) are shared with the original.
+ *
+ * @author .Maui
+ */
+public final class VultureCSSCoreStyleSheetCopier {
+
+    private VultureCSSCoreStyleSheetCopier() {
+    }
+
+    /**
+     * Copies a stylesheet, so that changing the copy never changes the
+     * original and the other way around.
+     *
+     * @param styleSheet
+     * @return the copy
+     */
+    public static CascadingStyleSheet copy(CascadingStyleSheet styleSheet) {
+
+        CascadingStyleSheet copy = located(new CascadingStyleSheet(), styleSheet);
+
+        for (CSSImportRule importRule : styleSheet.getAllImportRules()) {
+
+            CSSImportRule importCopy = located(new CSSImportRule(copy(importRule.getLocation())), importRule);
+
+            for (CSSMediaQuery mediaQuery : importRule.getAllMediaQueries()) {
+                importCopy.addMediaQuery(copy(mediaQuery));
+            }
+
+            copy.addImportRule(importCopy);
+        }
+
+        for (CSSNamespaceRule namespaceRule : styleSheet.getAllNamespaceRules()) {
+            copy.addNamespaceRule(located(new CSSNamespaceRule(namespaceRule.getNamespacePrefix(), namespaceRule.getNamespaceURL()), namespaceRule));
+        }
+
+        for (ICSSTopLevelRule rule : styleSheet.getAllRules()) {
+            copy.addRule(copy(rule));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Copies a top level rule and all its content.
+     *
+     * @param rule
+     * @return the copy
+     */
+    public static ICSSTopLevelRule copy(ICSSTopLevelRule rule) {
+
+        if (rule instanceof CSSStyleRule styleRule) {
+            return copy(styleRule);
+        } else if (rule instanceof CSSMediaRule mediaRule) {
+
+            CSSMediaRule copy = located(new CSSMediaRule(), mediaRule);
+
+            for (CSSMediaQuery mediaQuery : mediaRule.getAllMediaQueries()) {
+                copy.addMediaQuery(copy(mediaQuery));
+            }
+
+            for (ICSSTopLevelRule nestedRule : mediaRule.getAllRules()) {
+                copy.addRule(copy(nestedRule));
+            }
+
+            return copy;
+
+        } else if (rule instanceof CSSSupportsRule supportsRule) {
+
+            CSSSupportsRule copy = located(new CSSSupportsRule(), supportsRule);
+
+            for (ICSSSupportsConditionMember member : supportsRule.getAllSupportConditionMembers()) {
+                copy.addSupportConditionMember(copyCondition(member));
+            }
+
+            for (ICSSTopLevelRule nestedRule : supportsRule.getAllRules()) {
+                copy.addRule(copy(nestedRule));
+            }
+
+            return copy;
+
+        } else if (rule instanceof CSSKeyframesRule keyframesRule) {
+
+            CSSKeyframesRule copy = located(new CSSKeyframesRule(keyframesRule.getDeclaration(), keyframesRule.getAnimationName()), keyframesRule);
+
+            for (CSSKeyframesBlock block : keyframesRule.getAllBlocks()) {
+
+                CSSKeyframesBlock blockCopy = located(new CSSKeyframesBlock(block.getAllKeyframesSelectors()), block);
+
+                for (CSSDeclaration declaration : block.getAllDeclarations()) {
+                    blockCopy.addDeclaration(copy(declaration));
+                }
+
+                copy.addBlock(blockCopy);
+            }
+
+            return copy;
+
+        } else if (rule instanceof CSSFontFaceRule fontFaceRule) {
+
+            CSSFontFaceRule copy = located(new CSSFontFaceRule(fontFaceRule.getDeclaration()), fontFaceRule);
+
+            for (CSSDeclaration declaration : fontFaceRule.getAllDeclarations()) {
+                copy.addDeclaration(copy(declaration));
+            }
+
+            return copy;
+
+        } else if (rule instanceof CSSPageRule pageRule) {
+
+            CSSPageRule copy = located(new CSSPageRule(pageRule.getAllSelectors()), pageRule);
+
+            for (ICSSPageRuleMember member : pageRule.getAllMembers()) {
+                copy.addMember(copyPageMember(member));
+            }
+
+            return copy;
+
+        } else if (rule instanceof CSSViewportRule viewportRule) {
+
+            CSSViewportRule copy = located(new CSSViewportRule(viewportRule.getDeclaration()), viewportRule);
+
+            for (CSSDeclaration declaration : viewportRule.getAllDeclarations()) {
+                copy.addDeclaration(copy(declaration));
+            }
+
+            return copy;
+
+        } else if (rule instanceof CSSUnknownRule unknownRule) {
+
+            CSSUnknownRule copy = located(new CSSUnknownRule(unknownRule.getDeclaration()), unknownRule);
+            copy.setParameterList(unknownRule.getParameterList());
+            copy.setBody(unknownRule.getBody());
+
+            return copy;
+        }
+
+        throw new IllegalArgumentException("Unsupported rule: " + rule.getClass().getName());
+    }
+
+    /**
+     * Copies a style rule, its selectors and its declarations.
+     *
+     * @param styleRule
+     * @return the copy
+     */
+    public static CSSStyleRule copy(CSSStyleRule styleRule) {
+
+        CSSStyleRule copy = located(new CSSStyleRule(), styleRule);
+
+        for (CSSSelector selector : styleRule.getAllSelectors()) {
+            copy.addSelector(copy(selector));
+        }
+
+        for (CSSDeclaration declaration : styleRule.getAllDeclarations()) {
+            copy.addDeclaration(copy(declaration));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Copies a selector and its members.
+     *
+     * @param selector
+     * @return the copy
+     */
+    public static CSSSelector copy(CSSSelector selector) {
+
+        CSSSelector copy = located(new CSSSelector(), selector);
+
+        for (ICSSSelectorMember member : selector.getAllMembers()) {
+            copy.addMember(copySelectorMember(member));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Copies a declaration and its value.
+     *
+     * @param declaration
+     * @return the copy
+     */
+    public static CSSDeclaration copy(CSSDeclaration declaration) {
+        return located(new CSSDeclaration(declaration.getProperty(), copy(declaration.getExpression()), declaration.isImportant()), declaration);
+    }
+
+    private static CSSExpression copy(CSSExpression expression) {
+
+        if (expression == null) {
+            return null;
+        }
+
+        CSSExpression copy = located(new CSSExpression(), expression);
+
+        for (ICSSExpressionMember member : expression.getAllMembers()) {
+            copy.addMember(copyExpressionMember(member));
+        }
+
+        return copy;
+    }
+
+    private static ICSSExpressionMember copyExpressionMember(ICSSExpressionMember member) {
+
+        if (member instanceof CSSExpressionMemberTermSimple term) {
+            return located(new CSSExpressionMemberTermSimple(term.getValue()), term);
+        } else if (member instanceof CSSExpressionMemberTermURI term) {
+            return located(new CSSExpressionMemberTermURI(copy(term.getURI())), term);
+        } else if (member instanceof CSSExpressionMemberFunction function) {
+            return located(new CSSExpressionMemberFunction(function.getFunctionName(), copy(function.getExpression())), function);
+        } else if (member instanceof CSSExpressionMemberMath math) {
+
+            List<ICSSExpressionMathMember> members = new ArrayList<>();
+
+            for (ICSSExpressionMathMember mathMember : math.getAllMembers()) {
+                members.add(copyMathMember(mathMember));
+            }
+
+            return located(new CSSExpressionMemberMath(members), math);
+
+        } else if (member instanceof CSSExpressionMemberLineNames lineNames) {
+            return located(new CSSExpressionMemberLineNames(lineNames.getAllMembers()), lineNames);
+        }
+
+        // The operators are immutable.
+        return member;
+    }
+
+    private static ICSSExpressionMathMember copyMathMember(ICSSExpressionMathMember member) {
+
+        if (member instanceof CSSExpressionMemberMathProduct product) {
+            return copy(product);
+        } else if (member instanceof CSSExpressionMemberMathUnitProduct unitProduct) {
+            return located(new CSSExpressionMemberMathUnitProduct(copy(unitProduct.getProduct())), unitProduct);
+        }
+
+        // The simple units and the operators are immutable.
+        return member;
+    }
+
+    private static CSSExpressionMemberMathProduct copy(CSSExpressionMemberMathProduct product) {
+
+        CSSExpressionMemberMathProduct copy = located(new CSSExpressionMemberMathProduct(), product);
+
+        for (ICSSExpressionMathMember member : product.getAllMembers()) {
+            copy.addMember(copyMathMember(member));
+        }
+
+        return copy;
+    }
+
+    private static ICSSSelectorMember copySelectorMember(ICSSSelectorMember member) {
+
+        if (member instanceof CSSSelectorMemberNot not) {
+            return located(new CSSSelectorMemberNot(copy(not.getAllSelectors())), not);
+        } else if (member instanceof CSSSelectorMemberPseudoHas has) {
+            return located(new CSSSelectorMemberPseudoHas(has.getCombinator(), copy(has.getAllSelectors())), has);
+        } else if (member instanceof CSSSelectorMemberPseudoIs is) {
+            return located(new CSSSelectorMemberPseudoIs(copy(is.getSelector())), is);
+        } else if (member instanceof CSSSelectorMemberPseudoWhere where) {
+            return located(new CSSSelectorMemberPseudoWhere(copy(where.getSelector())), where);
+        } else if (member instanceof CSSSelectorMemberHost host) {
+            return located(new CSSSelectorMemberHost(copy(host.getSelector())), host);
+        } else if (member instanceof CSSSelectorMemberHostContext hostContext) {
+            return located(new CSSSelectorMemberHostContext(copy(hostContext.getSelector())), hostContext);
+        } else if (member instanceof CSSSelectorMemberSlotted slotted) {
+            return located(new CSSSelectorMemberSlotted(copy(slotted.getSelector())), slotted);
+        } else if (member instanceof CSSSelectorMemberFunctionLike function) {
+            return located(new CSSSelectorMemberFunctionLike(function.getFunctionName(), copy(function.getParameterExpression())), function);
+        }
+
+        // The simple members, the attributes and the combinators are immutable.
+        return member;
+    }
+
+    private static List<CSSSelector> copy(List<CSSSelector> selectors) {
+
+        List<CSSSelector> copy = new ArrayList<>(selectors.size());
+
+        for (CSSSelector selector : selectors) {
+            copy.add(copy(selector));
+        }
+
+        return copy;
+    }
+
+    private static ICSSSupportsConditionMember copyCondition(ICSSSupportsConditionMember member) {
+
+        if (member instanceof CSSSupportsConditionDeclaration declaration) {
+            return located(new CSSSupportsConditionDeclaration(copy(declaration.getDeclaration())), declaration);
+        } else if (member instanceof CSSSupportsConditionNegation negation) {
+            return located(new CSSSupportsConditionNegation(copyCondition(negation.getSupportsMember())), negation);
+        } else if (member instanceof CSSSupportsConditionNested nested) {
+
+            CSSSupportsConditionNested copy = located(new CSSSupportsConditionNested(), nested);
+
+            for (ICSSSupportsConditionMember nestedMember : nested.getAllMembers()) {
+                copy.addMember(copyCondition(nestedMember));
+            }
+
+            return copy;
+        }
+
+        // The operators are immutable.
+        return member;
+    }
+
+    private static ICSSPageRuleMember copyPageMember(ICSSPageRuleMember member) {
+
+        if (member instanceof CSSDeclaration declaration) {
+            return copy(declaration);
+        } else if (member instanceof CSSPageMarginBlock block) {
+
+            CSSPageMarginBlock copy = located(new CSSPageMarginBlock(block.getPageMarginSymbol()), block);
+
+            for (CSSDeclaration declaration : block.getAllDeclarations()) {
+                copy.addDeclaration(copy(declaration));
+            }
+
+            return copy;
+        }
+
+        return member;
+    }
+
+    private static CSSMediaQuery copy(CSSMediaQuery mediaQuery) {
+
+        CSSMediaQuery copy = located(new CSSMediaQuery(mediaQuery.getModifier(), mediaQuery.getMedium()), mediaQuery);
+
+        for (CSSMediaExpression expression : mediaQuery.getAllMediaExpressions()) {
+
+            CSSExpression value = copy(expression.getValue());
+
+            copy.addMediaExpression(located((value == null)
+                    ? new CSSMediaExpression(expression.getFeature())
+                    : new CSSMediaExpression(expression.getFeature(), value), expression));
+        }
+
+        return copy;
+    }
+
+    private static CSSURI copy(CSSURI uri) {
+        return located(new CSSURI(uri.getURI()), uri);
+    }
+
+    private static <T> T located(T copy, Object original) {
+
+        if (copy instanceof ICSSSourceLocationAware target && original instanceof ICSSSourceLocationAware source) {
+            target.setSourceLocation(source.getSourceLocation());
+        }
+
+        return copy;
+    }
+
+}
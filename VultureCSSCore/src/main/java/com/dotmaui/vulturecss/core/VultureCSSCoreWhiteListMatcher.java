@@ -0,0 +1,272 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import com.dotmaui.vulturecss.models.WhiteListRule;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * The whitelist rules compiled once, so that checking a selector costs a
+ * single scan of it, whatever the number of rules:
+ * <ul>
+ * <li>the {@link WhiteListRule#EQUALS} rules are looked up in a hash set;</li>
+ * <li>the {@link WhiteListRule#CONTAINING} rules are searched all at once by
+ * an Aho-Corasick automaton;</li>
+ * <li>the {@link WhiteListRule#REGEX} rules are compiled once and searched in
+ * the selector.</li>
+ * </ul>
+ * The EQUALS and CONTAINING rules ignore the case. The matcher is immutable
+ * and can be shared between threads.
+ *
+ * @author .Maui
+ */
+public class VultureCSSCoreWhiteListMatcher {
+
+    private final Set<String> equals = new HashSet<>();
+    private final List<Pattern> patterns = new ArrayList<>();
+
+    /**
+     * True if a CONTAINING rule is empty: it is contained in every selector.
+     */
+    private boolean containsAll = false;
+
+    /**
+     * The automaton of the CONTAINING rules. For each state, the characters of
+     * its transitions (sorted), the states they lead to, the state to fall
+     * back to when no transition matches, and if a rule ends in it or in one
+     * of its fallbacks.
+     */
+    private char[][] transitionChars;
+    private int[][] transitionStates;
+    private int[] fail;
+    private boolean[] output;
+
+    /**
+     * Compiles the rules. The rules without a selector are ignored.
+     *
+     * @param rules The whitelist rules, can be null.
+     * @throws java.util.regex.PatternSyntaxException If a REGEX rule is not a
+     * valid regular expression.
+     */
+    public VultureCSSCoreWhiteListMatcher(List<WhiteListRule> rules) {
+
+        List<String> containing = new ArrayList<>();
+
+        if (rules != null) {
+
+            for (WhiteListRule rule : rules) {
+
+                String selector = rule.getSelector();
+
+                if (selector == null) {
+                    continue;
+                }
+
+                switch (rule.getType()) {
+                    case WhiteListRule.CONTAINING ->
+                        containing.add(selector.toLowerCase(Locale.ROOT));
+                    case WhiteListRule.EQUALS ->
+                        this.equals.add(selector.toLowerCase(Locale.ROOT));
+                    case WhiteListRule.REGEX ->
+                        this.patterns.add(Pattern.compile(selector));
+                    default -> {
+                        // Unknown types never matched.
+                    }
+                }
+            }
+        }
+
+        buildAutomaton(containing);
+    }
+
+    /**
+     * Checks if the selector is whitelisted by at least one rule.
+     *
+     * @param selector
+     * @return true if the selector is whitelisted
+     */
+    public boolean matches(String selector) {
+
+        if (this.containsAll) {
+            return true;
+        }
+
+        String lowerCase = selector.toLowerCase(Locale.ROOT);
+
+        if (this.equals.contains(lowerCase) || containsRule(lowerCase)) {
+            return true;
+        }
+
+        for (Pattern pattern : this.patterns) {
+            if (pattern.matcher(selector).find()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tells if there are no rules.
+     *
+     * @return true if no selector can be whitelisted
+     */
+    public boolean isEmpty() {
+        return !this.containsAll && this.equals.isEmpty() && this.patterns.isEmpty() && this.output.length == 1;
+    }
+
+    private boolean containsRule(String selector) {
+
+        int state = 0;
+
+        for (int i = 0; i < selector.length(); i++) {
+
+            char ch = selector.charAt(i);
+            int next = next(state, ch);
+
+            while (next < 0 && state != 0) {
+                state = this.fail[state];
+                next = next(state, ch);
+            }
+
+            state = Math.max(next, 0);
+
+            if (this.output[state]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int next(int state, char ch) {
+
+        int index = Arrays.binarySearch(this.transitionChars[state], ch);
+
+        return (index < 0) ? -1 : this.transitionStates[state][index];
+    }
+
+    private void buildAutomaton(List<String> rules) {
+
+        // The trie of the rules, built with maps and then compacted into arrays.
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+
+        trie.add(new TreeMap<>());
+        terminal.add(Boolean.FALSE);
+
+        for (String rule : rules) {
+
+            if (rule.isEmpty()) {
+                this.containsAll = true;
+                continue;
+            }
+
+            int state = 0;
+
+            for (int i = 0; i < rule.length(); i++) {
+
+                Integer next = trie.get(state).get(rule.charAt(i));
+
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(rule.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    terminal.add(Boolean.FALSE);
+                }
+
+                state = next;
+            }
+
+            terminal.set(state, Boolean.TRUE);
+        }
+
+        int size = trie.size();
+
+        this.transitionChars = new char[size][];
+        this.transitionStates = new int[size][];
+        this.fail = new int[size];
+        this.output = new boolean[size];
+
+        for (int state = 0; state < size; state++) {
+
+            TreeMap<Character, Integer> transitions = trie.get(state);
+
+            this.transitionChars[state] = new char[transitions.size()];
+            this.transitionStates[state] = new int[transitions.size()];
+            this.output[state] = terminal.get(state);
+
+            int i = 0;
+
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                this.transitionChars[state][i] = transition.getKey();
+                this.transitionStates[state][i] = transition.getValue();
+                i++;
+            }
+        }
+
+        // The fallbacks, breadth first: each state falls back to the longest
+        // suffix of its path that is a prefix of a rule.
+        Deque<Integer> queue = new ArrayDeque<>();
+
+        for (int child : this.transitionStates[0]) {
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+
+            int state = queue.poll();
+
+            for (int i = 0; i < this.transitionChars[state].length; i++) {
+
+                char ch = this.transitionChars[state][i];
+                int child = this.transitionStates[state][i];
+
+                int fallback = this.fail[state];
+                int next = next(fallback, ch);
+
+                while (next < 0 && fallback != 0) {
+                    fallback = this.fail[fallback];
+                    next = next(fallback, ch);
+                }
+
+                this.fail[child] = Math.max(next, 0);
+                this.output[child] |= this.output[this.fail[child]];
+
+                queue.add(child);
+            }
+        }
+    }
+
+}
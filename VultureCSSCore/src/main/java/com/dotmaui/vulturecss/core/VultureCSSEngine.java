@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.core;
+
+import com.dotmaui.vulturecss.models.Carcass;
+import com.dotmaui.vulturecss.models.MultiPageCarcass;
+import com.dotmaui.vulturecss.models.PurgeRequest;
+import com.dotmaui.vulturecss.models.VultureCSSOptions;
+import com.dotmaui.vulturecss.utils.HttpFetcher;
+import com.dotmaui.vulturecss.utils.WebClientPool;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A reusable engine, safe to share between threads, for example by all the
+ * requests of a web service. It is built from a copy of the options, that
+ * can't be changed afterwards, and owns what is worth keeping between calls:
+ * the cache of the parsed stylesheets, the HTTP fetcher, the clients that
+ * render the pages when the static HTML is not used and, when the
+ * stylesheets of a page are processed concurrently, the thread pool.
+ *
+ * Each call works on its own {@link VultureCSSCore}, so many calls can run at
+ * the same time. When the options have an output folder, each purge writes
+ * its files in its own new subfolder of it, so concurrent calls never write
+ * the same files: the carcasses reference the files of their call.
+ *
+ * @author .Maui
+ */
+public class VultureCSSEngine implements AutoCloseable {
+
+    /**
+     * Maximum size of the cache of the parsed stylesheets, when the options
+     * have no cache.
+     */
+    private static final long DEFAULT_STYLESHEET_CACHE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Number of threads of the pool used to process the stylesheets of a page
+     * concurrently, when the options have no executor.
+     */
+    private static final int STYLESHEET_THREADS = 16;
+
+    /**
+     * Prefix of the subfolder of the output folder created for each purge.
+     */
+    private static final String OUTPUT_FOLDER_PREFIX = "purge-";
+
+    private static final String WARM_UP_CSS = "body{margin:0}.a,.b>p{color:red}#c:hover{color:blue}"
+            + "@media (min-width:768px){.a{color:green}.d{color:black}}";
+
+    private static final String WARM_UP_HTML = "<html><body><div class=\"a\" id=\"c\"><p>a</p></div></body></html>";
+
+    private final VultureCSSOptions options;
+    private final ExecutorService ownExecutor;
+    private final WebClientPool ownWebClientPool;
+
+    /**
+     * Creates an engine with the default options.
+     */
+    public VultureCSSEngine() {
+        this(new VultureCSSOptions());
+    }
+
+    /**
+     * Creates an engine with a copy of the given options: changing them
+     * afterwards doesn't change the engine. If the options have no cache of
+     * the parsed stylesheets, no fetcher or no executor, the engine creates
+     * its own.
+     *
+     * @param options The configuration options.
+     */
+    public VultureCSSEngine(VultureCSSOptions options) {
+
+        this.options = new VultureCSSOptions(options);
+
+        if (this.options.getStyleSheetCache() == null) {
+            this.options.setStyleSheetCache(new VultureCSSCoreStyleSheetCache(DEFAULT_STYLESHEET_CACHE_SIZE));
+        }
+
+        if (this.options.getHttpFetcher() == null) {
+            this.options.setHttpFetcher(HttpFetcher.getShared());
+        }
+
+        if (this.options.getExecutor() == null && this.options.isParallelStyleSheets()) {
+
+            this.ownExecutor = Executors.newFixedThreadPool(STYLESHEET_THREADS, (task) -> {
+                Thread thread = new Thread(task, "vulturecss-engine");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            this.options.setExecutor(this.ownExecutor);
+
+        } else {
+            this.ownExecutor = null;
+        }
+
+        if (this.options.getWebClientPool() == null && (!this.options.isUseStaticHTMLFromWebPage() || this.options.isAutoRenderHTML())) {
+            this.ownWebClientPool = new WebClientPool();
+            this.options.setWebClientPool(this.ownWebClientPool);
+        } else {
+            this.ownWebClientPool = null;
+        }
+    }
+
+    /**
+     * Keeps the CSS used by the HTML of the request.
+     *
+     * @param request The CSS and the HTML, as strings or URLs.
+     * @return The used CSS, one carcass for each stylesheet.
+     * @throws Exception
+     */
+    public List<Carcass> purge(PurgeRequest request) throws Exception {
+
+        VultureCSSOptions callOptions = this.options;
+
+        if (callOptions.getOutputDirectory() != null) {
+            callOptions = new VultureCSSOptions(this.options);
+            callOptions.setOutputDirectory(Files.createTempDirectory(
+                    Files.createDirectories(this.options.getOutputDirectory()), OUTPUT_FOLDER_PREFIX));
+        }
+
+        return purge(request, callOptions);
+    }
+
+    private static List<Carcass> purge(PurgeRequest request, VultureCSSOptions options) throws Exception {
+
+        VultureCSSCore core = new VultureCSSCore();
+        core.setCss(request.getCss());
+        core.setCssUrl(request.getCssUrl());
+        core.setHtml(request.getHtml());
+        core.setHtmlUrl(request.getHtmlUrl());
+        core.setOptions(options);
+
+        return core.Process();
+    }
+
+    /**
+     * Keeps the CSS used by at least one of the pages.
+     *
+     * @param css   The raw CSS stylesheet.
+     * @param htmls The HTML pages.
+     * @return The used CSS, with the detail of each page.
+     * @throws Exception
+     */
+    public MultiPageCarcass purgePages(String css, List<String> htmls) throws Exception {
+
+        VultureCSSCore core = new VultureCSSCore(css);
+        core.setOptions(this.options);
+
+        return core.ProcessPages(htmls);
+    }
+
+    /**
+     * Merges and optimizes the rules of the CSS.
+     *
+     * @param css The raw CSS stylesheet.
+     * @return The merged and optimized CSS.
+     * @throws Exception
+     */
+    public String mergeAndOptimize(String css) throws Exception {
+        return VultureCSSCore.mergeAndOptimizeCSSFromString(css, this.options);
+    }
+
+    /**
+     * Runs a small purge and merge, so that the classes are loaded and the
+     * first real call doesn't pay for it. Nothing is written to the output
+     * folder. The input is always valid, so a failure means that the engine
+     * can't work with its options.
+     *
+     * @return this engine
+     * @throws Exception If the warm-up purge or merge fails.
+     */
+    public VultureCSSEngine warmUp() throws Exception {
+
+        VultureCSSOptions warmUpOptions = new VultureCSSOptions(this.options);
+        warmUpOptions.setOutputDirectory(null);
+
+        purge(new PurgeRequest(WARM_UP_CSS, WARM_UP_HTML), warmUpOptions);
+        VultureCSSCore.mergeAndOptimizeCSSFromString(WARM_UP_CSS, warmUpOptions);
+
+        return this;
+    }
+
+    /**
+     * Get a copy of the options of the engine
+     *
+     * @return the options, changing them doesn't change the engine
+     */
+    public VultureCSSOptions getOptions() {
+        return new VultureCSSOptions(this.options);
+    }
+
+    /**
+     * Stops the thread pool and the clients created by the engine, if any.
+     * The executor and the pool of the options are not stopped.
+     */
+    @Override
+    public void close() {
+
+        if (this.ownExecutor != null) {
+            this.ownExecutor.shutdown();
+        }
+
+        if (this.ownWebClientPool != null) {
+            this.ownWebClientPool.close();
+        }
+    }
+
+}
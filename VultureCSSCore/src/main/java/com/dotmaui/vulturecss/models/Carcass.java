@@ -23,6 +23,14 @@
  */
 package com.dotmaui.vulturecss.models;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class Carcass {
 
     private String cdnUrl = null;
@@ -68,11 +76,21 @@ public class Carcass {
     private String usedCSS;
 
     /**
-     * Get the value of usedCSS
+     * Get the value of usedCSS. If the used CSS has been written to a file,
+     * it is read from the file.
      *
      * @return the value of usedCSS
      */
     public String getUsedCSS() {
+
+        if (usedCSS == null && usedCSSFile != null) {
+            try {
+                return Files.readString(usedCSSFile, StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
         return usedCSS;
     }
 
@@ -85,6 +103,87 @@ public class Carcass {
         this.usedCSS = usedCSS;
     }
 
+    private Path usedCSSFile;
+
+    /**
+     * Get the file the used CSS has been written to
+     *
+     * @return the value of usedCSSFile, null if the used CSS is kept in
+     * memory
+     */
+    public Path getUsedCSSFile() {
+        return usedCSSFile;
+    }
+
+    /**
+     * Set the file the used CSS has been written to
+     *
+     * @param usedCSSFile new value of usedCSSFile
+     */
+    public void setUsedCSSFile(Path usedCSSFile) {
+        this.usedCSSFile = usedCSSFile;
+    }
+
+    /**
+     * Writes the used CSS to a writer, copying it from its file if it has
+     * been written to one. The writer is not closed.
+     *
+     * @param out The writer.
+     * @throws IOException If the file can't be read or the writer fails.
+     */
+    public void writeUsedCSS(Writer out) throws IOException {
+
+        if (usedCSS == null && usedCSSFile != null) {
+            try (Reader in = Files.newBufferedReader(usedCSSFile, StandardCharsets.UTF_8)) {
+                in.transferTo(out);
+            }
+        } else if (usedCSS != null) {
+            out.write(usedCSS);
+        }
+
+    }
+
+    private boolean rendered = false;
+
+    /**
+     * Get if the page was rendered with its JavaScript
+     *
+     * @return the value of rendered
+     */
+    public boolean isRendered() {
+        return rendered;
+    }
+
+    /**
+     * Set if the page was rendered with its JavaScript
+     *
+     * @param rendered new value of rendered
+     */
+    public void setRendered(boolean rendered) {
+        this.rendered = rendered;
+    }
+
+    private String renderReason = null;
+
+    /**
+     * Get why the page was rendered in the automatic mode
+     *
+     * @return the value of renderReason, null if the page was not rendered or
+     * the mode was not automatic
+     */
+    public String getRenderReason() {
+        return renderReason;
+    }
+
+    /**
+     * Set why the page was rendered in the automatic mode
+     *
+     * @param renderReason new value of renderReason
+     */
+    public void setRenderReason(String renderReason) {
+        this.renderReason = renderReason;
+    }
+
     private boolean parseError = false;
 
     /**
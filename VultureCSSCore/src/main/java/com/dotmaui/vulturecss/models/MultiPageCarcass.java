@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of the processing of one stylesheet against many HTML pages.
+ *
+ * @author .Maui
+ */
+public class MultiPageCarcass {
+
+    /**
+     * The CSS used by at least one of the pages.
+     */
+    private String usedCSS;
+
+    /**
+     * Get the value of usedCSS
+     *
+     * @return the value of usedCSS
+     */
+    public String getUsedCSS() {
+        return usedCSS;
+    }
+
+    /**
+     * Set the value of usedCSS
+     *
+     * @param usedCSS new value of usedCSS
+     */
+    public void setUsedCSS(String usedCSS) {
+        this.usedCSS = usedCSS;
+    }
+
+    /**
+     * One entry for each page, in the same order of the pages processed.
+     */
+    private List<PageCarcass> pages = new ArrayList<>();
+
+    /**
+     * Get the value of pages
+     *
+     * @return the value of pages
+     */
+    public List<PageCarcass> getPages() {
+        return pages;
+    }
+
+    /**
+     * Set the value of pages
+     *
+     * @param pages new value of pages
+     */
+    public void setPages(List<PageCarcass> pages) {
+        this.pages = pages;
+    }
+
+}
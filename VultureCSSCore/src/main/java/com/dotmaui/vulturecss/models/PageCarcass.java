@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The detail of one page in a multi-page processing.
+ *
+ * @author .Maui
+ */
+public class PageCarcass {
+
+    /**
+     * The path or URL of the page, if known.
+     */
+    private String path;
+
+    /**
+     * Get the value of path
+     *
+     * @return the value of path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Set the value of path
+     *
+     * @param path new value of path
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * The number of selectors checked against this page. Selectors already found on a previous page are not checked again.
+     */
+    private int checkedSelectors;
+
+    /**
+     * Get the value of checkedSelectors
+     *
+     * @return the value of checkedSelectors
+     */
+    public int getCheckedSelectors() {
+        return checkedSelectors;
+    }
+
+    /**
+     * Set the value of checkedSelectors
+     *
+     * @param checkedSelectors new value of checkedSelectors
+     */
+    public void setCheckedSelectors(int checkedSelectors) {
+        this.checkedSelectors = checkedSelectors;
+    }
+
+    /**
+     * The selectors found for the first time on this page.
+     */
+    private List<String> usedSelectors = new ArrayList<>();
+
+    /**
+     * Get the value of usedSelectors
+     *
+     * @return the value of usedSelectors
+     */
+    public List<String> getUsedSelectors() {
+        return usedSelectors;
+    }
+
+    /**
+     * Set the value of usedSelectors
+     *
+     * @param usedSelectors new value of usedSelectors
+     */
+    public void setUsedSelectors(List<String> usedSelectors) {
+        this.usedSelectors = usedSelectors;
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.models;
+
+import java.net.URL;
+
+/**
+ * What to purge with a {@link com.dotmaui.vulturecss.core.VultureCSSEngine}:
+ * the CSS and the HTML, each given as a string or as a URL. As with
+ * {@link com.dotmaui.vulturecss.core.VultureCSSCore}, if only the HTML is
+ * given, all the stylesheets linked by the page are processed.
+ *
+ * @author .Maui
+ */
+public class PurgeRequest {
+
+    public PurgeRequest() {
+    }
+
+    public PurgeRequest(String css, String html) {
+        this.css = css;
+        this.html = html;
+    }
+
+    public PurgeRequest(URL cssUrl, URL htmlUrl) {
+        this.cssUrl = cssUrl;
+        this.htmlUrl = htmlUrl;
+    }
+
+    private String css;
+
+    /**
+     * Get the value of css
+     *
+     * @return the value of css
+     */
+    public String getCss() {
+        return css;
+    }
+
+    /**
+     * Set the value of css
+     *
+     * @param css new value of css
+     */
+    public void setCss(String css) {
+        this.css = css;
+    }
+
+    private URL cssUrl;
+
+    /**
+     * Get the value of cssUrl
+     *
+     * @return the value of cssUrl
+     */
+    public URL getCssUrl() {
+        return cssUrl;
+    }
+
+    /**
+     * Set the value of cssUrl
+     *
+     * @param cssUrl new value of cssUrl
+     */
+    public void setCssUrl(URL cssUrl) {
+        this.cssUrl = cssUrl;
+    }
+
+    private String html;
+
+    /**
+     * Get the value of html
+     *
+     * @return the value of html
+     */
+    public String getHtml() {
+        return html;
+    }
+
+    /**
+     * Set the value of html
+     *
+     * @param html new value of html
+     */
+    public void setHtml(String html) {
+        this.html = html;
+    }
+
+    private URL htmlUrl;
+
+    /**
+     * Get the value of htmlUrl
+     *
+     * @return the value of htmlUrl
+     */
+    public URL getHtmlUrl() {
+        return htmlUrl;
+    }
+
+    /**
+     * Set the value of htmlUrl
+     *
+     * @param htmlUrl new value of htmlUrl
+     */
+    public void setHtmlUrl(URL htmlUrl) {
+        this.htmlUrl = htmlUrl;
+    }
+
+}
@@ -23,8 +23,16 @@
  */
 package com.dotmaui.vulturecss.models;
 
+import com.dotmaui.vulturecss.core.VultureCSSCoreStyleSheetCache;
+import com.dotmaui.vulturecss.core.VultureCSSCoreWhiteListMatcher;
+import com.dotmaui.vulturecss.utils.HttpFetcher;
+import com.dotmaui.vulturecss.utils.WebClientPool;
 import com.helger.css.ECSSVersion;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class VultureCSSOptions {
 
@@ -87,6 +95,40 @@ public class VultureCSSOptions {
         this.ECSSVersion = ECSSVersion.LATEST;
     }
 
+    /**
+     * Creates a copy of the options. The whitelist rules, the cache, the
+     * executor, the fetcher and the pool of the clients are shared.
+     *
+     * @param options the options to copy
+     */
+    public VultureCSSOptions(VultureCSSOptions options) {
+        this.DotMauiApiKey = options.DotMauiApiKey;
+        this.CDNMode = options.CDNMode;
+        this.mergeAll = options.mergeAll;
+        this.UseStaticHTMLFromWebPage = options.UseStaticHTMLFromWebPage;
+        this.autoRenderHTML = options.autoRenderHTML;
+        this.scanScriptClasses = options.scanScriptClasses;
+        this.MinifyCSSOutput = options.MinifyCSSOutput;
+        this.ECSSVersion = options.ECSSVersion;
+        this.styleSheetCache = options.styleSheetCache;
+        this.parallelStyleSheets = options.parallelStyleSheets;
+        this.executor = options.executor;
+        this.maxConnectionsPerHost = options.maxConnectionsPerHost;
+        this.httpFetcher = options.httpFetcher;
+        this.webClientPool = options.webClientPool;
+        this.parallelRules = options.parallelRules;
+        this.parallelRulesThreshold = options.parallelRulesThreshold;
+        this.parallelParsing = options.parallelParsing;
+        this.parallelParsingThreshold = options.parallelParsingThreshold;
+        this.outputDirectory = options.outputDirectory;
+
+        // The rules can't be changed once set, so they and their matcher are shared.
+        synchronized (options) {
+            this.WhiteListRules = options.WhiteListRules;
+            this.whiteListMatcher = options.whiteListMatcher;
+        }
+    }
+
     /**
      * Get the value of UseStaticHTMLFromWebPage
      *
@@ -105,6 +147,57 @@ public class VultureCSSOptions {
         this.UseStaticHTMLFromWebPage = UseStaticHTMLFromWebPage;
     }
 
+    /**
+     * If true, the static HTML of a page is downloaded first and the page is
+     * rendered with its JavaScript only if it looks like it needs it (see
+     * {@link com.dotmaui.vulturecss.core.VultureCSSCoreRenderDetector}).
+     * UseStaticHTMLFromWebPage is then ignored.
+     */
+    private boolean autoRenderHTML = false;
+
+    /**
+     * Get the value of autoRenderHTML
+     *
+     * @return the value of autoRenderHTML
+     */
+    public boolean isAutoRenderHTML() {
+        return autoRenderHTML;
+    }
+
+    /**
+     * Set the value of autoRenderHTML
+     *
+     * @param autoRenderHTML new value of autoRenderHTML
+     */
+    public void setAutoRenderHTML(boolean autoRenderHTML) {
+        this.autoRenderHTML = autoRenderHTML;
+    }
+
+    /**
+     * If true, the class names found in the string literals of the inline and
+     * linked scripts of a page are considered used, as if the scripts could
+     * add them to any element.
+     */
+    private boolean scanScriptClasses = false;
+
+    /**
+     * Get the value of scanScriptClasses
+     *
+     * @return the value of scanScriptClasses
+     */
+    public boolean isScanScriptClasses() {
+        return scanScriptClasses;
+    }
+
+    /**
+     * Set the value of scanScriptClasses
+     *
+     * @param scanScriptClasses new value of scanScriptClasses
+     */
+    public void setScanScriptClasses(boolean scanScriptClasses) {
+        this.scanScriptClasses = scanScriptClasses;
+    }
+
     private boolean MinifyCSSOutput = true;
 
     /**
@@ -145,10 +238,22 @@ public class VultureCSSOptions {
         this.ECSSVersion = ECSSVersion;
     }
 
-    private List<WhiteListRule> WhiteListRules;
+    /**
+     * The matcher of the options without whitelist rules.
+     */
+    private static final VultureCSSCoreWhiteListMatcher NO_WHITE_LIST = new VultureCSSCoreWhiteListMatcher(null);
+
+    /**
+     * A read-only copy of the whitelist rules, taken when they are set, so
+     * that the compiled matcher always reflects them.
+     */
+    private volatile List<WhiteListRule> WhiteListRules;
+
+    private volatile VultureCSSCoreWhiteListMatcher whiteListMatcher = NO_WHITE_LIST;
 
     /**
-     * Get the value of WhiteListRules
+     * Get the value of WhiteListRules. The list and its rules are read-only,
+     * the rules are changed by setting them again.
      *
      * @return the value of WhiteListRules
      */
@@ -157,12 +262,332 @@ public class VultureCSSOptions {
     }
 
     /**
-     * Set the value of WhiteListRules
+     * Set the value of WhiteListRules. The rules are copied and compiled
+     * here: changing the list or its rules afterwards has no effect until
+     * they are set again.
      *
      * @param WhiteListRules new value of WhiteListRules
+     * @throws java.util.regex.PatternSyntaxException If a REGEX rule is not a
+     * valid regular expression, the previous rules are kept.
      */
     public void setWhiteListRules(List<WhiteListRule>  WhiteListRules) {
-        this.WhiteListRules = WhiteListRules;
+
+        List<WhiteListRule> rules = copyRules(WhiteListRules);
+        VultureCSSCoreWhiteListMatcher matcher = (rules == null) ? NO_WHITE_LIST : new VultureCSSCoreWhiteListMatcher(rules);
+
+        synchronized (this) {
+            this.WhiteListRules = rules;
+            this.whiteListMatcher = matcher;
+        }
+    }
+
+    /**
+     * Get the whitelist rules compiled into a matcher, when they were set.
+     *
+     * @return the compiled whitelist rules, never null
+     */
+    public VultureCSSCoreWhiteListMatcher getWhiteListMatcher() {
+        return whiteListMatcher;
+    }
+
+    private static List<WhiteListRule> copyRules(List<WhiteListRule> rules) {
+
+        if (rules == null) {
+            return null;
+        }
+
+        List<WhiteListRule> copies = new ArrayList<>(rules.size());
+
+        for (WhiteListRule rule : rules) {
+            copies.add(new ReadOnlyWhiteListRule(rule));
+        }
+
+        return Collections.unmodifiableList(copies);
+    }
+
+    /**
+     * A whitelist rule of the options, its changes would not reach the
+     * compiled matcher.
+     */
+    private static final class ReadOnlyWhiteListRule extends WhiteListRule {
+
+        ReadOnlyWhiteListRule(WhiteListRule rule) {
+            super.setSelector(rule.getSelector());
+            super.setType(rule.getType());
+        }
+
+        @Override
+        public void setSelector(String Selector) {
+            throw new UnsupportedOperationException("The whitelist rules of the options are read-only, set them again");
+        }
+
+        @Override
+        public void setType(int type) {
+            throw new UnsupportedOperationException("The whitelist rules of the options are read-only, set them again");
+        }
+
+    }
+
+    /**
+     * Cache of the parsed stylesheets, shared by all the Process calls that use
+     * these options. If null, each stylesheet is parsed every time.
+     */
+    private VultureCSSCoreStyleSheetCache styleSheetCache = null;
+
+    /**
+     * Get the value of styleSheetCache
+     *
+     * @return the value of styleSheetCache
+     */
+    public VultureCSSCoreStyleSheetCache getStyleSheetCache() {
+        return styleSheetCache;
+    }
+
+    /**
+     * Set the value of styleSheetCache
+     *
+     * @param styleSheetCache new value of styleSheetCache
+     */
+    public void setStyleSheetCache(VultureCSSCoreStyleSheetCache styleSheetCache) {
+        this.styleSheetCache = styleSheetCache;
+    }
+
+    /**
+     * If true, the stylesheets linked by a page are downloaded and processed
+     * concurrently.
+     */
+    private boolean parallelStyleSheets = false;
+
+    /**
+     * Get the value of parallelStyleSheets
+     *
+     * @return the value of parallelStyleSheets
+     */
+    public boolean isParallelStyleSheets() {
+        return parallelStyleSheets;
+    }
+
+    /**
+     * Set the value of parallelStyleSheets
+     *
+     * @param parallelStyleSheets new value of parallelStyleSheets
+     */
+    public void setParallelStyleSheets(boolean parallelStyleSheets) {
+        this.parallelStyleSheets = parallelStyleSheets;
+    }
+
+    /**
+     * The executor used for the concurrent processing. If null, a temporary
+     * thread pool is created for each page.
+     */
+    private Executor executor = null;
+
+    /**
+     * Get the value of executor
+     *
+     * @return the value of executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the value of executor
+     *
+     * @param executor new value of executor
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Maximum number of concurrent downloads from the same host.
+     */
+    private int maxConnectionsPerHost = 6;
+
+    /**
+     * Get the value of maxConnectionsPerHost
+     *
+     * @return the value of maxConnectionsPerHost
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Set the value of maxConnectionsPerHost
+     *
+     * @param maxConnectionsPerHost new value of maxConnectionsPerHost
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * The fetcher used to download CSS and HTML. If null, the shared one is
+     * used.
+     */
+    private HttpFetcher httpFetcher = null;
+
+    /**
+     * Get the value of httpFetcher
+     *
+     * @return the value of httpFetcher
+     */
+    public HttpFetcher getHttpFetcher() {
+        return httpFetcher;
+    }
+
+    /**
+     * Set the value of httpFetcher
+     *
+     * @param httpFetcher new value of httpFetcher
+     */
+    public void setHttpFetcher(HttpFetcher httpFetcher) {
+        this.httpFetcher = httpFetcher;
+    }
+
+    /**
+     * The pool of the clients that render the pages with their JavaScript,
+     * when the static HTML is not used. If null, the shared one is used.
+     */
+    private WebClientPool webClientPool = null;
+
+    /**
+     * Get the value of webClientPool
+     *
+     * @return the value of webClientPool
+     */
+    public WebClientPool getWebClientPool() {
+        return webClientPool;
+    }
+
+    /**
+     * Set the value of webClientPool
+     *
+     * @param webClientPool new value of webClientPool
+     */
+    public void setWebClientPool(WebClientPool webClientPool) {
+        this.webClientPool = webClientPool;
+    }
+
+    /**
+     * If true, the selectors of a stylesheet are matched against the page
+     * concurrently, on a fork/join pool.
+     */
+    private boolean parallelRules = false;
+
+    /**
+     * Get the value of parallelRules
+     *
+     * @return the value of parallelRules
+     */
+    public boolean isParallelRules() {
+        return parallelRules;
+    }
+
+    /**
+     * Set the value of parallelRules
+     *
+     * @param parallelRules new value of parallelRules
+     */
+    public void setParallelRules(boolean parallelRules) {
+        this.parallelRules = parallelRules;
+    }
+
+    /**
+     * Minimum number of selectors of a stylesheet to match them concurrently,
+     * smaller stylesheets are checked sequentially.
+     */
+    private int parallelRulesThreshold = 1000;
+
+    /**
+     * Get the value of parallelRulesThreshold
+     *
+     * @return the value of parallelRulesThreshold
+     */
+    public int getParallelRulesThreshold() {
+        return parallelRulesThreshold;
+    }
+
+    /**
+     * Set the value of parallelRulesThreshold
+     *
+     * @param parallelRulesThreshold new value of parallelRulesThreshold
+     */
+    public void setParallelRulesThreshold(int parallelRulesThreshold) {
+        this.parallelRulesThreshold = parallelRulesThreshold;
+    }
+
+    /**
+     * If true, big stylesheets are split into chunks of whole rules that are
+     * parsed concurrently, on a fork/join pool.
+     */
+    private boolean parallelParsing = false;
+
+    /**
+     * Get the value of parallelParsing
+     *
+     * @return the value of parallelParsing
+     */
+    public boolean isParallelParsing() {
+        return parallelParsing;
+    }
+
+    /**
+     * Set the value of parallelParsing
+     *
+     * @param parallelParsing new value of parallelParsing
+     */
+    public void setParallelParsing(boolean parallelParsing) {
+        this.parallelParsing = parallelParsing;
+    }
+
+    /**
+     * Minimum length, in characters, of a stylesheet to parse it in chunks,
+     * smaller stylesheets are parsed as a whole.
+     */
+    private int parallelParsingThreshold = 1024 * 1024;
+
+    /**
+     * Get the value of parallelParsingThreshold
+     *
+     * @return the value of parallelParsingThreshold
+     */
+    public int getParallelParsingThreshold() {
+        return parallelParsingThreshold;
+    }
+
+    /**
+     * Set the value of parallelParsingThreshold
+     *
+     * @param parallelParsingThreshold new value of parallelParsingThreshold
+     */
+    public void setParallelParsingThreshold(int parallelParsingThreshold) {
+        this.parallelParsingThreshold = parallelParsingThreshold;
+    }
+
+    private Path outputDirectory = null;
+
+    /**
+     * Get the folder where the CSS used by each stylesheet of a page is
+     * written
+     *
+     * @return the value of outputDirectory, null if the CSS is kept in memory
+     */
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Set the folder where the CSS used by each stylesheet of a page is
+     * written. If set, the carcasses reference their file instead of holding
+     * the CSS as a string. It is not used when all the CSS is merged.
+     *
+     * @param outputDirectory new value of outputDirectory
+     */
+    public void setOutputDirectory(Path outputDirectory) {
+        this.outputDirectory = outputDirectory;
     }
 
 }
@@ -28,6 +28,13 @@ public class WhiteListRule {
     public static final int CONTAINING = 0;
     public static final int EQUALS = 1;
 
+    /**
+     * The selector is a regular expression found somewhere in the CSS
+     * selector. Unlike the other types, it is case sensitive unless the
+     * expression says otherwise, e.g. with (?i).
+     */
+    public static final int REGEX = 2;
+
     private String Selector;
 
     /**
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.htmlunit.SgmlPage;
+import org.htmlunit.html.DomAttr;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.DomText;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Tag;
+
+/**
+ * Copies the live DOM of a page rendered by HtmlUnit, as it is after its
+ * scripts ran, into a jsoup document, in a single walk of the tree. The page
+ * is not serialized and parsed again, and the classes and the elements added
+ * by the scripts are kept.
+ *
+ * Only the elements, their attributes and the text are copied: that's all
+ * the selectors can match. The text of the scripts and the styles is copied
+ * as data, like jsoup does when it parses a page, so that their code can
+ * still be read by the checks that need it.
+ *
+ * @author .Maui
+ */
+public class HtmlUnitToJsoup {
+
+    /**
+     * Copies the DOM of the page.
+     *
+     * @param page The rendered page.
+     * @return A new jsoup document with the same elements.
+     */
+    public static Document convert(SgmlPage page) {
+
+        Document document = new Document(page.getUrl().toExternalForm());
+
+        // The tree is walked with a stack, deep pages can't overflow the call stack.
+        Deque<DomNode> sources = new ArrayDeque<>();
+        Deque<Element> targets = new ArrayDeque<>();
+
+        sources.push(page);
+        targets.push(document);
+
+        while (!sources.isEmpty()) {
+
+            DomNode source = sources.pop();
+            Element target = targets.pop();
+
+            for (DomNode child = source.getFirstChild(); child != null; child = child.getNextSibling()) {
+
+                if (child instanceof DomElement element) {
+
+                    String name = element.getLocalName() != null ? element.getLocalName() : element.getTagName();
+                    Element copy = new Element(Tag.valueOf(name), "");
+
+                    for (DomAttr attribute : element.getAttributesMap().values()) {
+                        copy.attr(attribute.getName(), attribute.getValue());
+                    }
+
+                    target.appendChild(copy);
+
+                    sources.push(element);
+                    targets.push(copy);
+
+                } else if (child instanceof DomText text) {
+
+                    // As the jsoup parser does, the code of the scripts and
+                    // styles is data, so Element.data() returns it.
+                    if (isDataTag(target)) {
+                        target.appendChild(new DataNode(text.getData()));
+                    } else {
+                        target.appendChild(new TextNode(text.getData()));
+                    }
+                }
+            }
+        }
+
+        return document;
+    }
+
+    private static boolean isDataTag(Element element) {
+
+        String name = element.normalName();
+
+        return "script".equals(name) || "style".equals(name);
+    }
+
+}
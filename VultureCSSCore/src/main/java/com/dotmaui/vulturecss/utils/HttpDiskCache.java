@@ -0,0 +1,423 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A persistent cache of downloaded content, kept in a directory.
+ *
+ * Each entry is stored in two files named after the SHA-256 hash of its key:
+ * {@code <hash>.body} with the content in UTF-8 and {@code <hash>.meta} with
+ * the key and the validators sent by the server ({@code ETag} and
+ * {@code Last-Modified}), which are used to revalidate the entry with a
+ * conditional request. Both files are written to temporary files first and
+ * moved into place atomically, the meta file last, so that a body is never
+ * paired with the validators of another one.
+ *
+ * The total size of the bodies is bounded: when it is exceeded the least
+ * recently used entries are removed. In offline mode the entries are served
+ * without revalidation and nothing is downloaded, so a run can be replayed
+ * against a prepopulated directory.
+ *
+ * @author .Maui
+ */
+public class HttpDiskCache {
+
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxSize;
+    private volatile boolean offline = false;
+    private long size;
+
+    public HttpDiskCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param directory The directory of the cache, created if missing.
+     * @param maxSize The maximum total size of the cached bodies, in bytes.
+     * @throws IOException If the directory can't be created or read.
+     */
+    public HttpDiskCache(Path directory, long maxSize) throws IOException {
+
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+
+        for (Path body : listBodies()) {
+            this.size += Files.size(body);
+        }
+
+        // The temporary files of the writes interrupted by a crash.
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + TMP_SUFFIX)) {
+            for (Path tmp : stream) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+    }
+
+    /**
+     * Returns the entry stored under the given key and marks it as recently
+     * used.
+     *
+     * @param key Usually the URL of the content.
+     * @return The entry or null if the key is not cached.
+     */
+    public synchronized Entry get(String key) {
+
+        String hash = hash(key);
+        Path body = this.directory.resolve(hash + BODY_SUFFIX);
+        Path meta = this.directory.resolve(hash + META_SUFFIX);
+
+        try {
+
+            Properties properties = new Properties();
+
+            try (InputStream is = Files.newInputStream(meta)) {
+                properties.load(is);
+            }
+
+            // Two keys with the same hash are not expected, but they must not be mixed up.
+            if (!key.equals(properties.getProperty("key"))) {
+                return null;
+            }
+
+            String content = Files.readString(body, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(meta, FileTime.fromMillis(System.currentTimeMillis()));
+
+            return new Entry(content, properties.getProperty("etag"), properties.getProperty("last-modified"));
+
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            System.err.println("Cache read error: " + ex.getMessage());
+            return null;
+        }
+
+    }
+
+    /**
+     * Stores an entry, replacing the previous one with the same key, then
+     * removes the least recently used entries if the cache is too large.
+     *
+     * @param key Usually the URL of the content.
+     * @param content The content.
+     * @param etag The ETag sent by the server, can be null.
+     * @param lastModified The Last-Modified date sent by the server, can be
+     * null.
+     */
+    public synchronized void put(String key, String content, String etag, String lastModified) {
+
+        String hash = hash(key);
+        Path body = this.directory.resolve(hash + BODY_SUFFIX);
+        Path meta = this.directory.resolve(hash + META_SUFFIX);
+
+        Properties properties = new Properties();
+        properties.setProperty("key", key);
+
+        if (etag != null) {
+            properties.setProperty("etag", etag);
+        }
+
+        if (lastModified != null) {
+            properties.setProperty("last-modified", lastModified);
+        }
+
+        try {
+
+            long previousSize = Files.exists(body) ? Files.size(body) : 0;
+
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            Path bodyTmp = Files.createTempFile(this.directory, hash, TMP_SUFFIX);
+            Path metaTmp = null;
+
+            try {
+
+                Files.write(bodyTmp, bytes);
+
+                metaTmp = Files.createTempFile(this.directory, hash, TMP_SUFFIX);
+
+                try (OutputStream os = Files.newOutputStream(metaTmp)) {
+                    properties.store(os, null);
+                }
+
+                // The meta file is what makes an entry valid, so it is removed
+                // before the body is replaced and put back last: a crash in
+                // between leaves a body without meta, which is a miss, never a
+                // body with the validators of the previous one.
+                Files.deleteIfExists(meta);
+                move(bodyTmp, body);
+                move(metaTmp, meta);
+
+            } finally {
+                Files.deleteIfExists(bodyTmp);
+
+                if (metaTmp != null) {
+                    Files.deleteIfExists(metaTmp);
+                }
+            }
+
+            this.size += bytes.length - previousSize;
+
+            evict();
+
+        } catch (IOException ex) {
+            System.err.println("Cache write error: " + ex.getMessage());
+        }
+
+    }
+
+    /**
+     * Removes all the entries.
+     *
+     * @throws IOException
+     */
+    public synchronized void clear() throws IOException {
+
+        for (Path body : listBodies()) {
+            remove(body);
+        }
+
+        this.size = 0;
+
+    }
+
+    /**
+     * Removes the least recently used entries until the bodies fit in the
+     * maximum size.
+     */
+    private void evict() throws IOException {
+
+        if (this.size <= this.maxSize) {
+            return;
+        }
+
+        List<Path> bodies = listBodies();
+        List<FileTime> lastUses = new ArrayList<>(bodies.size());
+        List<Integer> order = new ArrayList<>(bodies.size());
+
+        for (int i = 0; i < bodies.size(); i++) {
+            lastUses.add(lastUse(bodies.get(i)));
+            order.add(i);
+        }
+
+        order.sort(Comparator.comparing(lastUses::get));
+
+        for (int i : order) {
+
+            if (this.size <= this.maxSize) {
+                break;
+            }
+
+            this.size -= remove(bodies.get(i));
+        }
+
+    }
+
+    private FileTime lastUse(Path body) throws IOException {
+
+        Path meta = metaOf(body);
+
+        return Files.exists(meta) ? Files.getLastModifiedTime(meta) : Files.getLastModifiedTime(body);
+
+    }
+
+    private long remove(Path body) throws IOException {
+
+        long removed = Files.exists(body) ? Files.size(body) : 0;
+
+        Files.deleteIfExists(body);
+        Files.deleteIfExists(metaOf(body));
+
+        return removed;
+
+    }
+
+    private Path metaOf(Path body) {
+
+        String name = body.getFileName().toString();
+
+        return body.resolveSibling(name.substring(0, name.length() - BODY_SUFFIX.length()) + META_SUFFIX);
+
+    }
+
+    private List<Path> listBodies() throws IOException {
+
+        List<Path> bodies = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + BODY_SUFFIX)) {
+            for (Path p : stream) {
+                bodies.add(p);
+            }
+        }
+
+        return bodies;
+
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+    }
+
+    private static String hash(String key) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+
+    }
+
+    /**
+     * Get the directory of the cache
+     *
+     * @return the value of directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the maximum total size of the cached bodies, in bytes
+     *
+     * @return the value of maxSize
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the total size of the cached bodies, in bytes
+     *
+     * @return the value of size
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the value of offline
+     *
+     * @return the value of offline
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Set the value of offline. If true, the entries are served without
+     * revalidation and nothing is downloaded.
+     *
+     * @param offline new value of offline
+     */
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    /**
+     * A cached content with its validators.
+     */
+    public static class Entry {
+
+        private final String content;
+        private final String etag;
+        private final String lastModified;
+
+        public Entry(String content, String etag, String lastModified) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Get the value of content
+         *
+         * @return the value of content
+         */
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * Get the value of etag
+         *
+         * @return the value of etag
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Get the value of lastModified
+         *
+         * @return the value of lastModified
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Returns true if the entry can be revalidated with a conditional
+         * request.
+         *
+         * @return true if the entry has an ETag or a Last-Modified date
+         */
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+
+    }
+
+}
@@ -0,0 +1,463 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Downloads CSS and HTML through a single {@link HttpClient}, so that the
+ * connections to the same origin are kept alive and reused (HTTP/2 when the
+ * server supports it) instead of doing a new TLS handshake for each file.
+ *
+ * Responses are requested compressed, limited in size and decoded with the
+ * charset declared by the server (UTF-8 if none is declared). The read timeout
+ * bounds both the wait for the response headers and the read of the body: a
+ * server that sends the body too slowly has its response closed.
+ *
+ * If a {@link HttpDiskCache} is set, the downloaded content is stored on disk
+ * and revalidated with conditional requests ({@code If-None-Match} and
+ * {@code If-Modified-Since}): a 304 answer is served from the cache. The cached
+ * copy is also served when the server can't be reached.
+ *
+ * @author .Maui
+ */
+public class HttpFetcher {
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+    public static final long DEFAULT_MAX_BODY_SIZE = 32L * 1024 * 1024;
+
+    private static final HttpFetcher SHARED = new HttpFetcher();
+
+    /**
+     * Closes the bodies that are not read before their deadline. A single
+     * daemon thread is enough, it only closes streams.
+     */
+    private static final ScheduledThreadPoolExecutor WATCHDOG = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "vulturecss-http-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        WATCHDOG.setRemoveOnCancelPolicy(true);
+    }
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+    private final long maxBodySize;
+    private final HttpDiskCache diskCache;
+
+    public HttpFetcher() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * @param diskCache The cache where the downloaded content is stored, can
+     * be null.
+     */
+    public HttpFetcher(HttpDiskCache diskCache) {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_MAX_BODY_SIZE, diskCache);
+    }
+
+    public HttpFetcher(Duration connectTimeout, Duration readTimeout, long maxBodySize) {
+        this(connectTimeout, readTimeout, maxBodySize, null);
+    }
+
+    /**
+     * @param connectTimeout The maximum time to establish a connection.
+     * @param readTimeout The maximum time to wait for the headers of a
+     * response, and then to read its body.
+     * @param maxBodySize The maximum size of a response, in bytes, after
+     * decompression.
+     * @param diskCache The cache where the downloaded content is stored, can
+     * be null.
+     */
+    public HttpFetcher(Duration connectTimeout, Duration readTimeout, long maxBodySize, HttpDiskCache diskCache) {
+
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout)
+                .build();
+
+        this.readTimeout = readTimeout;
+        this.maxBodySize = maxBodySize;
+        this.diskCache = diskCache;
+
+    }
+
+    /**
+     * Get the fetcher shared by the whole application
+     *
+     * @return the shared fetcher
+     */
+    public static HttpFetcher getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Downloads the content of the given URL as a string.
+     *
+     * @param url The URL to download. URLs that are not http or https (like
+     * file:) are read directly.
+     * @return The content, decoded with the charset declared by the server.
+     * @throws IOException If the download fails, the server doesn't answer
+     * with a 2xx status or the content is too large.
+     */
+    public String fetch(URL url) throws IOException {
+
+        String protocol = url.getProtocol().toLowerCase(Locale.ROOT);
+
+        if (!protocol.equals("http") && !protocol.equals("https")) {
+            try (InputStream is = url.openStream()) {
+                return new String(readBody(is), StandardCharsets.UTF_8);
+            }
+        }
+
+        if (this.diskCache == null) {
+            return download(url);
+        }
+
+        String key = url.toString();
+        HttpDiskCache.Entry entry = this.diskCache.get(key);
+
+        if (this.diskCache.isOffline()) {
+
+            if (entry == null) {
+                throw new IOException("Not available offline: " + url);
+            }
+
+            return entry.getContent();
+        }
+
+        HttpRequest.Builder request = newRequest(url);
+
+        if (entry != null) {
+            addValidators(request, entry);
+        }
+
+        HttpResponse<InputStream> response;
+
+        try {
+            response = send(request.build());
+        } catch (IOException ex) {
+
+            // The server can't be reached, the cached copy is better than nothing.
+            if (entry != null) {
+                return entry.getContent();
+            }
+
+            throw ex;
+        }
+
+        try (InputStream body = response.body()) {
+
+            if (response.statusCode() == 304 && entry != null) {
+                return entry.getContent();
+            }
+
+            checkStatus(response, url);
+
+            String content = decode(response.headers(), body, url);
+
+            this.diskCache.put(key, content,
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+
+            return content;
+        }
+
+    }
+
+    /**
+     * Asks the server if the content of the given URL is still the one of a
+     * cache entry, with a conditional request.
+     *
+     * @param url The URL of the content.
+     * @param entry The cache entry.
+     * @return true if the server answers 304 Not Modified, false if the entry
+     * has no validators or the content has changed.
+     * @throws IOException If the server can't be reached.
+     */
+    public boolean isNotModified(URL url, HttpDiskCache.Entry entry) throws IOException {
+
+        if (!entry.hasValidators()) {
+            return false;
+        }
+
+        HttpRequest.Builder request = newRequest(url);
+        addValidators(request, entry);
+
+        HttpResponse<InputStream> response = send(request.build());
+
+        try {
+            return response.statusCode() == 304;
+        } finally {
+            // The body of a changed page is not needed, it is discarded.
+            response.body().close();
+        }
+
+    }
+
+    private String download(URL url) throws IOException {
+
+        HttpResponse<InputStream> response = send(newRequest(url).build());
+
+        try (InputStream body = response.body()) {
+
+            checkStatus(response, url);
+
+            return decode(response.headers(), body, url);
+        }
+
+    }
+
+    private static void addValidators(HttpRequest.Builder request, HttpDiskCache.Entry entry) {
+
+        if (entry.getEtag() != null) {
+            request.header("If-None-Match", entry.getEtag());
+        }
+
+        if (entry.getLastModified() != null) {
+            request.header("If-Modified-Since", entry.getLastModified());
+        }
+
+    }
+
+    private static void checkStatus(HttpResponse<?> response, URL url) throws IOException {
+
+        if (response.statusCode() < 200 || response.statusCode() > 299) {
+            throw new IOException("HTTP status " + response.statusCode() + " for " + url);
+        }
+
+    }
+
+    /**
+     * Creates a GET request for the given URL, with the headers and the
+     * timeout of this fetcher.
+     *
+     * @param url
+     * @return the request builder
+     * @throws IOException If the URL is not a valid URI.
+     */
+    HttpRequest.Builder newRequest(URL url) throws IOException {
+
+        try {
+            return HttpRequest.newBuilder(url.toURI())
+                    .timeout(this.readTimeout)
+                    .header("Accept-Encoding", "gzip, deflate")
+                    .GET();
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            throw new IOException("Invalid URL: " + url, ex);
+        }
+
+    }
+
+    /**
+     * Sends a request, the body of the response is not read yet.
+     *
+     * @param request
+     * @return the response
+     * @throws IOException
+     */
+    HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+
+        try {
+            return this.client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", ex);
+        }
+
+    }
+
+    /**
+     * Decompresses and decodes the body of a response. The body is closed if
+     * it is not read within the read timeout.
+     *
+     * @param headers The headers of the response.
+     * @param body The raw body.
+     * @param url The URL of the response, for the error messages.
+     * @return The content as a string.
+     * @throws IOException If the body can't be read, or is not read within
+     * the read timeout (an {@link HttpTimeoutException}).
+     */
+    String decode(HttpHeaders headers, InputStream body, URL url) throws IOException {
+
+        AtomicBoolean expired = new AtomicBoolean(false);
+
+        ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+            expired.set(true);
+            try {
+                body.close();
+            } catch (IOException ex) {
+                // The read fails anyway, the timeout is reported below.
+            }
+        }, this.readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        String content;
+
+        try {
+            content = decode(headers, body);
+        } catch (IOException ex) {
+
+            if (expired.get()) {
+                throw newReadTimeout(url);
+            }
+
+            throw ex;
+        } finally {
+            watchdog.cancel(false);
+        }
+
+        // A closed body can also look like a complete one.
+        if (expired.get()) {
+            throw newReadTimeout(url);
+        }
+
+        return content;
+
+    }
+
+    private HttpTimeoutException newReadTimeout(URL url) {
+        return new HttpTimeoutException("The body of " + url + " was not read within " + this.readTimeout.toMillis() + " ms");
+    }
+
+    private String decode(HttpHeaders headers, InputStream body) throws IOException {
+
+        String encoding = headers.firstValue("Content-Encoding").orElse("").trim().toLowerCase(Locale.ROOT);
+
+        InputStream is = switch (encoding) {
+            case "gzip", "x-gzip" ->
+                new GZIPInputStream(body);
+            case "deflate" ->
+                new InflaterInputStream(body);
+            default ->
+                body;
+        };
+
+        return new String(readBody(is), getCharset(headers.firstValue("Content-Type").orElse(null)));
+
+    }
+
+    private byte[] readBody(InputStream is) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        byte[] buffer = new byte[16 * 1024];
+        long total = 0;
+        int read;
+
+        while ((read = is.read(buffer)) != -1) {
+
+            total += read;
+
+            if (total > this.maxBodySize) {
+                throw new IOException("The content exceeds the maximum size of " + this.maxBodySize + " bytes");
+            }
+
+            out.write(buffer, 0, read);
+        }
+
+        return out.toByteArray();
+
+    }
+
+    /**
+     * Returns the charset declared in a Content-Type header, or UTF-8.
+     *
+     * @param contentType
+     * @return the charset
+     */
+    static Charset getCharset(String contentType) {
+
+        if (contentType != null) {
+
+            for (String parameter : contentType.split(";")) {
+
+                String[] pair = parameter.trim().split("=", 2);
+
+                if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                    try {
+                        return Charset.forName(pair[1].trim().replace("\"", ""));
+                    } catch (IllegalArgumentException ex) {
+                        // Unknown charset, the default is used.
+                    }
+                }
+            }
+        }
+
+        return StandardCharsets.UTF_8;
+
+    }
+
+    /**
+     * Get the cache where the downloaded content is stored
+     *
+     * @return the value of diskCache, null if there is no cache
+     */
+    public HttpDiskCache getDiskCache() {
+        return diskCache;
+    }
+
+    /**
+     * Get the maximum size of a response, in bytes
+     *
+     * @return the value of maxBodySize
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Get the maximum time to wait for the headers of a response, and then
+     * for its body
+     *
+     * @return the value of readTimeout
+     */
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+}
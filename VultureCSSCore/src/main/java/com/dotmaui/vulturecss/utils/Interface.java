@@ -32,8 +32,11 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.util.stream.Collectors;
 import org.htmlunit.Page;
+import org.htmlunit.SgmlPage;
 import org.htmlunit.WebClient;
 import org.htmlunit.WebResponse;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -42,7 +45,8 @@ import java.nio.charset.StandardCharsets;
 public class Interface {
 
     /**
-     * Downloads content from the given URL.
+     * Downloads content from the given URL, with the shared
+     * {@link HttpFetcher}.
      *
      * @param url The URL from which to download content as a {@link URL}
      * object.
@@ -50,22 +54,25 @@ public class Interface {
      * occurs.
      */
     public static String downloadFromUrl(URL url) {
-        StringBuilder content = new StringBuilder(); // Use StringBuilder for efficiency
-        try {
-            // Use try-with-resources to automatically close resources
-            try (InputStream is = url.openStream(); BufferedReader br = new BufferedReader(new InputStreamReader(is))) {
+        return downloadFromUrl(url, HttpFetcher.getShared());
+    }
 
-                String line;
-                while ((line = br.readLine()) != null) {
-                    content.append(line); // Append each line to StringBuilder
-                }
-            }
+    /**
+     * Downloads content from the given URL with the given fetcher.
+     *
+     * @param url The URL from which to download content as a {@link URL}
+     * object.
+     * @param fetcher The fetcher to use.
+     * @return The content as a {@link String} or {@code null} if an error
+     * occurs.
+     */
+    public static String downloadFromUrl(URL url, HttpFetcher fetcher) {
+        try {
+            return fetcher.fetch(url);
         } catch (IOException ioe) {
             System.err.println("IO error: " + ioe.getMessage()); // Log the exception
             return null;
         }
-
-        return content.toString(); // Convert StringBuilder to a string
     }
 
     /**
@@ -87,12 +94,123 @@ public class Interface {
      * rendering process.
      */
     public static String downloadRenderedPage(URL url) throws IOException {
+        return downloadRenderedPage(url, HttpFetcher.getShared());
+    }
+
+    /**
+     * Downloads and returns the fully rendered content of a web page, using
+     * the disk cache of the given fetcher if it has one.
+     *
+     * <p>
+     * A cached page is served if the server answers that the page has not
+     * changed since it was rendered, or without asking the server if the cache
+     * is offline.</p>
+     *
+     * @param url The URL of the web page to be downloaded as a {@link URL}
+     * object.
+     * @param fetcher The fetcher whose disk cache is used.
+     * @return The rendered HTML content of the web page as a {@link String}.
+     * @throws IOException If an I/O error occurs during the downloading or
+     * rendering process, or if the page is not cached in offline mode.
+     */
+    public static String downloadRenderedPage(URL url, HttpFetcher fetcher) throws IOException {
+        return downloadRenderedPage(url, fetcher, WebClientPool.getShared());
+    }
+
+    /**
+     * Downloads and returns the fully rendered content of a web page with a
+     * client of the given pool, using the disk cache of the given fetcher if
+     * it has one.
+     *
+     * @param url The URL of the web page to be downloaded as a {@link URL}
+     * object.
+     * @param fetcher The fetcher whose disk cache is used.
+     * @param pool The pool of the clients that render the page.
+     * @return The rendered HTML content of the web page as a {@link String}.
+     * @throws IOException If an I/O error occurs during the downloading or
+     * rendering process, or if the page is not cached in offline mode.
+     */
+    public static String downloadRenderedPage(URL url, HttpFetcher fetcher, WebClientPool pool) throws IOException {
+        return downloadRenderedDocument(url, fetcher, pool).outerHtml();
+    }
+
+    /**
+     * Renders a web page with a client of the given pool and returns its DOM
+     * as it is after the scripts ran, copied straight into a jsoup document
+     * without serializing it. The scripts that start shortly after the page
+     * is loaded are waited for (see
+     * {@link WebClientPool#getBackgroundJavaScriptWait()}).
+     *
+     * <p>
+     * With the disk cache of the fetcher, the DOM is stored as HTML and a
+     * cached page is served if the server answers that the page has not
+     * changed since it was rendered, or without asking the server if the cache
+     * is offline.</p>
+     *
+     * @param url The URL of the web page.
+     * @param fetcher The fetcher whose disk cache is used.
+     * @param pool The pool of the clients that render the page.
+     * @return The rendered document.
+     * @throws IOException If an I/O error occurs during the downloading or
+     * rendering process, or if the page is not cached in offline mode.
+     */
+    public static Document downloadRenderedDocument(URL url, HttpFetcher fetcher, WebClientPool pool) throws IOException {
+
+        HttpDiskCache cache = fetcher.getDiskCache();
+        String key = "rendered-dom:" + url;
+
+        if (cache != null) {
+
+            HttpDiskCache.Entry entry = cache.get(key);
+
+            if (cache.isOffline()) {
+
+                if (entry == null) {
+                    throw new IOException("Not available offline: " + url);
+                }
+
+                return Jsoup.parse(entry.getContent(), url.toExternalForm());
+            }
+
+            if (entry != null && fetcher.isNotModified(url, entry)) {
+                return Jsoup.parse(entry.getContent(), url.toExternalForm());
+            }
+        }
+
+        WebClient webClient;
+
+        try {
+            webClient = pool.borrow();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a client: " + url, ex);
+        }
 
-        try (WebClient webClient = new WebClient()) { // Using try-with-resources to ensure WebClient is closed
+        Document document;
+        WebResponse response;
+
+        try {
             Page page = webClient.getPage(url);
-            WebResponse response = page.getWebResponse();
-            return response.getContentAsString(); // Return the rendered HTML as a string
+            webClient.waitForBackgroundJavaScriptStartingBefore(pool.getBackgroundJavaScriptWait());
+
+            response = page.getWebResponse();
+
+            // The DOM must be copied before the client goes back to the pool.
+            if (page instanceof SgmlPage sgmlPage) {
+                document = HtmlUnitToJsoup.convert(sgmlPage);
+            } else {
+                document = Jsoup.parse(response.getContentAsString(), url.toExternalForm());
+            }
+        } finally {
+            // The client goes back to the pool, cleared, for the next page.
+            pool.release(webClient);
+        }
+
+        if (cache != null) {
+            cache.put(key, document.outerHtml(), response.getResponseHeaderValue("ETag"), response.getResponseHeaderValue("Last-Modified"));
         }
+
+        return document;
     }
 
     /**
@@ -0,0 +1,397 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2025 .Maui | dotmaui.com.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.dotmaui.vulturecss.utils;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.htmlunit.StorageHolder;
+import org.htmlunit.TopLevelWindow;
+import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.util.WebConnectionWrapper;
+
+/**
+ * A bounded pool of HtmlUnit clients, used to render the pages with their
+ * JavaScript. Creating a client starts a whole JavaScript engine, so the
+ * clients are reused from page to page: between two pages the cookies and
+ * the local and session storage are cleared, the windows opened by the page
+ * are closed and the pending scripts are stopped. The cache of the scripts is
+ * kept.
+ *
+ * Each rendering takes a client for itself, so up to the size of the pool
+ * pages can be rendered at the same time; the others wait for a free client.
+ * CSS and images are not loaded, they are not needed to build the DOM.
+ *
+ * @author .Maui
+ */
+public class WebClientPool implements AutoCloseable {
+
+    /**
+     * Default maximum time, in milliseconds, a script can run.
+     */
+    public static final long DEFAULT_JAVASCRIPT_TIMEOUT = 10_000;
+
+    /**
+     * Default time, in milliseconds, the scripts that start after a page is
+     * loaded are waited for.
+     */
+    public static final long DEFAULT_BACKGROUND_JAVASCRIPT_WAIT = 500;
+
+    /**
+     * Time, in milliseconds, after which a rendering waiting for a client
+     * checks if the pool has been closed.
+     */
+    private static final long CLOSED_CHECK_INTERVAL = 100;
+
+    private static final WebClientPool SHARED = new WebClientPool();
+
+    private final int size;
+    private final long javaScriptTimeout;
+    private final long backgroundJavaScriptWait;
+    private final BlockingQueue<WebClient> idleClients;
+    private int createdClients = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a pool with one client per processor.
+     */
+    public WebClientPool() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_JAVASCRIPT_TIMEOUT);
+    }
+
+    /**
+     * @param size The maximum number of clients.
+     * @param javaScriptTimeout The maximum time, in milliseconds, a script can
+     * run; 0 for no limit.
+     */
+    public WebClientPool(int size, long javaScriptTimeout) {
+        this(size, javaScriptTimeout, DEFAULT_BACKGROUND_JAVASCRIPT_WAIT);
+    }
+
+    /**
+     * @param size The maximum number of clients.
+     * @param javaScriptTimeout The maximum time, in milliseconds, a script can
+     * run; 0 for no limit.
+     * @param backgroundJavaScriptWait The time, in milliseconds, after the
+     * loading of a page within which the scripts that start (like timers and
+     * requests) are waited for before the DOM is read.
+     */
+    public WebClientPool(int size, long javaScriptTimeout, long backgroundJavaScriptWait) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("The pool needs at least one client");
+        }
+
+        this.size = size;
+        this.javaScriptTimeout = javaScriptTimeout;
+        this.backgroundJavaScriptWait = backgroundJavaScriptWait;
+        this.idleClients = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * Returns the pool used when none is given in the options.
+     *
+     * @return the shared pool
+     */
+    public static WebClientPool getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Creates all the clients of the pool in advance, so that the first pages
+     * don't wait for a JavaScript engine to start.
+     *
+     * @return this pool
+     */
+    public WebClientPool warmUp() {
+
+        while (reserveClient()) {
+            offerOrClose(newClient());
+        }
+
+        return this;
+    }
+
+    /**
+     * Takes a client from the pool, waiting for one if they are all in use.
+     * It must be given back with {@link #release}.
+     *
+     * @return a client
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If the pool is closed, before or while
+     * waiting.
+     */
+    public WebClient borrow() throws InterruptedException {
+
+        while (true) {
+
+            synchronized (this) {
+                if (this.closed) {
+                    throw new IllegalStateException("The pool is closed");
+                }
+            }
+
+            WebClient client = this.idleClients.poll();
+
+            if (client == null) {
+
+                if (reserveClient()) {
+                    // The JavaScript engine is started outside of the lock.
+                    return newClient();
+                }
+
+                // The wait is cut in slices, to notice that the pool is closed.
+                client = this.idleClients.poll(CLOSED_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+
+            if (client != null) {
+
+                synchronized (this) {
+                    if (!this.closed) {
+                        return client;
+                    }
+                }
+
+                discard(client);
+            }
+        }
+    }
+
+    /**
+     * Gives a client back to the pool, after clearing what the last page left
+     * in it. A client that can't be cleared is closed and replaced by a new
+     * one.
+     *
+     * @param client The client taken with {@link #borrow}.
+     */
+    public void release(WebClient client) {
+
+        try {
+            reset(client);
+        } catch (Exception ex) {
+
+            // Not reusable, a new client takes its place for the renderings
+            // waiting for one.
+            discard(client);
+
+            if (reserveClient()) {
+                offerOrClose(newClient());
+            }
+
+            return;
+        }
+
+        offerOrClose(client);
+    }
+
+    /**
+     * Counts a new client, if the pool is open and not full.
+     *
+     * @return true if a client can be created
+     */
+    private synchronized boolean reserveClient() {
+
+        if (!this.closed && this.createdClients < this.size) {
+            this.createdClients++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates a client for a slot reserved with {@link #reserveClient}. The
+     * slot is given back if the client can't be created.
+     *
+     * @return the new client
+     */
+    private WebClient newClient() {
+
+        try {
+            return createClient();
+        } catch (RuntimeException | Error ex) {
+
+            synchronized (this) {
+                this.createdClients--;
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Puts a client in the idle queue, or closes it if the pool is closed.
+     */
+    private void offerOrClose(WebClient client) {
+
+        synchronized (this) {
+            // The queue holds as many clients as the pool, the offer can't fail.
+            if (!this.closed && this.idleClients.offer(client)) {
+                return;
+            }
+        }
+
+        discard(client);
+    }
+
+    /**
+     * Closes a client and frees its slot.
+     */
+    private void discard(WebClient client) {
+
+        try {
+            client.close();
+        } finally {
+            synchronized (this) {
+                this.createdClients--;
+            }
+        }
+    }
+
+    private WebClient createClient() {
+
+        WebClient client = new WebClient();
+        client.getOptions().setCssEnabled(false);
+        client.getOptions().setDownloadImages(false);
+        client.setJavaScriptTimeout(this.javaScriptTimeout);
+
+        // Records the origins of the pages, whose local storage is cleared between pages.
+        new OriginRecorder(client);
+
+        return client;
+    }
+
+    private static void reset(WebClient client) throws Exception {
+
+        List<TopLevelWindow> windows = client.getTopLevelWindows();
+        StorageHolder storage = client.getStorageHolder();
+
+        // The session storage of each window, then the windows opened by the
+        // page are closed; the first one is kept.
+        for (int i = windows.size() - 1; i >= 0; i--) {
+
+            storage.getSessionStorage(windows.get(i)).clear();
+
+            if (i > 0) {
+                windows.get(i).close();
+            }
+        }
+
+        if (client.getWebConnection() instanceof OriginRecorder recorder) {
+
+            for (URL origin : recorder.getOrigins()) {
+                storage.getLocalStorage(origin).clear();
+            }
+
+            recorder.clearOrigins();
+        }
+
+        client.getCurrentWindow().getJobManager().removeAllJobs();
+        client.getCookieManager().clearCookies();
+        client.getPage("about:blank");
+    }
+
+    /**
+     * Keeps the origins of the requests of a client. The local storage of
+     * HtmlUnit can only be reached origin by origin.
+     */
+    private static class OriginRecorder extends WebConnectionWrapper {
+
+        private final Set<URL> origins = ConcurrentHashMap.newKeySet();
+
+        OriginRecorder(WebClient client) {
+            super(client);
+        }
+
+        @Override
+        public WebResponse getResponse(WebRequest request) throws IOException {
+
+            URL url = request.getUrl();
+            this.origins.add(new URL(url.getProtocol(), url.getHost(), url.getPort(), "/"));
+
+            return super.getResponse(request);
+        }
+
+        Set<URL> getOrigins() {
+            return this.origins;
+        }
+
+        void clearOrigins() {
+            this.origins.clear();
+        }
+    }
+
+    /**
+     * Get the maximum number of clients
+     *
+     * @return the value of size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the maximum time, in milliseconds, a script can run
+     *
+     * @return the value of javaScriptTimeout
+     */
+    public long getJavaScriptTimeout() {
+        return javaScriptTimeout;
+    }
+
+    /**
+     * Get the time, in milliseconds, after the loading of a page within which
+     * the scripts that start are waited for
+     *
+     * @return the value of backgroundJavaScriptWait
+     */
+    public long getBackgroundJavaScriptWait() {
+        return backgroundJavaScriptWait;
+    }
+
+    /**
+     * Closes the idle clients. The clients in use are closed when they are
+     * given back, and the renderings waiting for a client fail with an
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+
+        synchronized (this) {
+            this.closed = true;
+        }
+
+        for (WebClient client = this.idleClients.poll(); client != null; client = this.idleClients.poll()) {
+            discard(client);
+        }
+    }
+
+}